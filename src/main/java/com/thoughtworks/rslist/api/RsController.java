@@ -1,16 +1,31 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.BuyStatus;
+import com.thoughtworks.rslist.domain.KeywordTrend;
 import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventStats;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteTotal;
+import com.thoughtworks.rslist.dto.EventVoteRollupDto.Granularity;
 import com.thoughtworks.rslist.dto.RsEventDto;
-import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.exception.Error;
 import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.AsyncBuyService;
+import com.thoughtworks.rslist.service.IdBloomFilters;
+import com.thoughtworks.rslist.service.KeywordTrends;
+import com.thoughtworks.rslist.service.RsAuction;
+import com.thoughtworks.rslist.service.RsListCoalescer;
 import com.thoughtworks.rslist.service.RsService;
+import com.thoughtworks.rslist.service.UserEventVoteIndex;
+import com.thoughtworks.rslist.service.VoteJournal;
+import com.thoughtworks.rslist.service.VoteRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -22,72 +37,176 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @RestController
 @Validated
 public class RsController {
+  private static final int MAX_BATCH_IDS = 500;
+  private static final Pattern BOARD_NAME = Pattern.compile("[a-z0-9-]{1,32}");
+
   @Autowired RsEventRepository rsEventRepository;
   @Autowired UserRepository userRepository;
   @Autowired RsService rsService;
+  @Autowired RsListCoalescer rsListCoalescer;
+  @Autowired VoteJournal voteJournal;
+  @Autowired VoteRollupService voteRollupService;
+  @Autowired RsAuction rsAuction;
+  @Autowired AsyncBuyService asyncBuyService;
+  @Autowired KeywordTrends keywordTrends;
+  @Autowired UserEventVoteIndex userEventVoteIndex;
+  @Autowired IdBloomFilters idBloomFilters;
 
-  @GetMapping("/rs/list")
+  @GetMapping({"/rs/list", "/board/{board}/rs/list"})
   public ResponseEntity<List<RsEvent>> getRsEventListBetween(
-      @RequestParam(required = false) Integer start, @RequestParam(required = false) Integer end, @RequestParam(required = false)Integer page) {
+      @PathVariable(required = false) String board,
+      @RequestParam(required = false) Integer start, @RequestParam(required = false) Integer end, @RequestParam(required = false)Integer page,
+      @RequestParam(required = false) Integer forUser) {
     page = page == null ? 1 : page;
-    List<RsEvent> rsEvents = rsService.getRsEventList(page);
+    List<RsEvent> rsEvents = rsListCoalescer.getRsEventList(boardOf(board), page);
+    if (forUser != null) {
+      rsEvents = withUserVoteNum(rsEvents, forUser);
+    }
     if (start == null || end == null) {
       return ResponseEntity.ok(rsEvents);
     }
     return ResponseEntity.ok(rsEvents.subList(start - 1, end));
   }
 
-  @GetMapping("/rs/{index}")
-  public ResponseEntity<RsEvent> getRsEvent(@PathVariable int index, @RequestParam(required = false) Integer page) {
+  @GetMapping("/rs/batch")
+  public ResponseEntity<List<RsEvent>> getRsEvents(@RequestParam List<Integer> ids) {
+    if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS || ids.contains(null)) {
+      throw new RequestNotValidException("invalid ids");
+    }
+    return ResponseEntity.ok(rsService.getRsEvents(ids));
+  }
+
+  @GetMapping({"/rs/{index}", "/board/{board}/rs/{index}"})
+  public ResponseEntity<RsEvent> getRsEvent(
+      @PathVariable(required = false) String board, @PathVariable int index, @RequestParam(required = false) Integer page) {
     page = page == null ? 1 : page;
-    List<RsEvent> rsEvents = rsService.getRsEventList(page);
+    List<RsEvent> rsEvents = rsListCoalescer.getRsEventList(boardOf(board), page);
     if (index < 1 || index > rsEvents.size()) {
       throw new RequestNotValidException("invalid index");
     }
     return ResponseEntity.ok(rsEvents.get(index - 1));
   }
 
-  @PostMapping("/rs/event")
-  public ResponseEntity addRsEvent(@RequestBody @Valid RsEvent rsEvent) {
-    Optional<UserDto> userDto = userRepository.findById(rsEvent.getUserId());
-    if (!userDto.isPresent()) {
-      return ResponseEntity.badRequest().build();
+  @GetMapping("/rs/{id}/stats")
+  public ResponseEntity<RsEventStats> getRsEventStats(
+      @PathVariable int id,
+      @RequestParam(defaultValue = "hour") String granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "10") int top) {
+    Granularity bucketGranularity = Arrays.stream(Granularity.values())
+        .filter(value -> value.name().equalsIgnoreCase(granularity))
+        .findFirst()
+        .orElseThrow(() -> new RequestNotValidException("invalid granularity"));
+    if (top < 1 || top > 100) {
+      throw new RequestNotValidException("invalid top");
     }
-    RsEventDto build =
-        RsEventDto.builder()
-            .keyword(rsEvent.getKeyword())
-            .eventName(rsEvent.getEventName())
-            .voteNum(0)
-            .user(userDto.get())
-            .build();
-    rsEventRepository.save(build);
+    return ResponseEntity.ok(voteRollupService.getRsEventStats(id, bucketGranularity, from, to, top));
+  }
+
+  @GetMapping("/rs/keywords/trending")
+  public ResponseEntity<List<KeywordTrend>> getTrendingKeywords(@RequestParam(defaultValue = "10") int top) {
+    if (top < 1 || top > keywordTrends.getCapacity()) {
+      throw new RequestNotValidException("invalid top");
+    }
+    return ResponseEntity.ok(keywordTrends.getTrending(top));
+  }
+
+  @PostMapping({"/rs/event", "/board/{board}/rs/event"})
+  public ResponseEntity addRsEvent(@PathVariable(required = false) String board, @RequestBody @Valid RsEvent rsEvent) {
+    idBloomFilters.requireUser(rsEvent.getUserId());
+    rsService.addRsEvent(boardOf(board), rsEvent);
     return ResponseEntity.created(null).build();
   }
 
   @PostMapping("/rs/vote/{id}")
   public ResponseEntity vote(@PathVariable int id, @RequestBody Vote vote) {
+    idBloomFilters.requireRsEvent(id);
+    idBloomFilters.requireUser(vote.getUserId());
+    if (voteJournal.isEnabled()) {
+      voteJournal.append(vote, id);
+      return ResponseEntity.ok().build();
+    }
     rsService.vote(vote, id);
     return ResponseEntity.ok().build();
   }
 
-  @PostMapping("/rs/buy/{id}")
-  public ResponseEntity buy(@PathVariable int id, @RequestBody Trade trade){
-    rsService.buy(trade, id);
+  @PostMapping({"/rs/buy/{id}", "/board/{board}/rs/buy/{id}"})
+  public ResponseEntity buy(@PathVariable(required = false) String board, @PathVariable int id, @RequestBody Trade trade){
+    board = boardOf(board);
+    idBloomFilters.requireRsEvent(id);
+    if (asyncBuyService.isEnabled()) {
+      try {
+        return ResponseEntity.accepted().body(asyncBuyService.submit(board, trade, id));
+      } catch (RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+      }
+    }
+    if (rsAuction.isEnabled()) {
+      rsAuction.bid(board, trade, id);
+      return ResponseEntity.ok().build();
+    }
+    rsService.buy(board, trade, id);
     return ResponseEntity.ok().build();
   }
 
 
+  @GetMapping("/rs/buy/status/{bidId}")
+  public ResponseEntity<BuyStatus> getBuyStatus(@PathVariable String bidId) {
+    BuyStatus buyStatus = asyncBuyService.getStatus(bidId);
+    if (buyStatus == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(buyStatus);
+  }
+
+  private String boardOf(String board) {
+    if (board == null) {
+      return RsEventDto.DEFAULT_BOARD;
+    }
+    if (!BOARD_NAME.matcher(board).matches()) {
+      throw new RequestNotValidException("invalid board");
+    }
+    return board;
+  }
+
+  private List<RsEvent> withUserVoteNum(List<RsEvent> rsEvents, int userId) {
+    Map<Integer, Long> rolledUp = userEventVoteIndex.isEnabled()
+        ? Collections.emptyMap()
+        : voteRollupService.getUserStats(userId).getRsEvents().stream()
+            .collect(Collectors.toMap(VoteTotal::getRsEventId, VoteTotal::getVoteNum));
+    return rsEvents.stream()
+        .map(rsEvent -> rsEvent.toBuilder()
+            .userVoteNum(userEventVoteIndex.isEnabled()
+                ? userEventVoteIndex.getVoteNum(userId, rsEvent.getId())
+                : rolledUp.getOrDefault(rsEvent.getId(), 0L).intValue())
+            .build())
+        .collect(Collectors.toList());
+  }
+
   @ExceptionHandler(RequestNotValidException.class)
   public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
     Error error = new Error();
     error.setError(e.getMessage());
     return ResponseEntity.badRequest().body(error);
   }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<Error> handleServiceUnavailableHandler(ServiceUnavailableException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+  }
 }
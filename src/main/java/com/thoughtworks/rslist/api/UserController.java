@@ -1,37 +1,100 @@
 package com.thoughtworks.rslist.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thoughtworks.rslist.domain.User;
-import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.domain.UserImportResult;
+import com.thoughtworks.rslist.domain.UserStats;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.UserImporter;
+import com.thoughtworks.rslist.service.UserService;
+import com.thoughtworks.rslist.service.VoteRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 public class UserController {
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
   @Autowired UserRepository userRepository;
+  @Autowired VoteRollupService voteRollupService;
+  @Autowired UserImporter userImporter;
+  @Autowired UserService userService;
+  @Autowired ObjectMapper objectMapper;
 
   @PostMapping("/user")
   public void register(@RequestBody @Valid User user) {
-    UserDto userDto = new UserDto();
-    userDto.setGender(user.getGender());
-    userDto.setPhone(user.getPhone());
-    userDto.setVoteNum(user.getVoteNum());
-    userDto.setAge(user.getAge());
-    userDto.setEmail(user.getEmail());
-    userDto.setUserName(user.getUserName());
-    userRepository.save(userDto);
+    userService.register(user);
+  }
+
+  @PostMapping(value = "/users/import", consumes = {"text/csv", "application/x-ndjson"})
+  public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+    UserImporter.RowParser parser =
+        CSV.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+            ? UserImporter.csvParser(reader.readLine())
+            : userImporter.ndjsonParser();
+    StreamingResponseBody body =
+        outputStream -> {
+          try (Writer writer =
+              new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            UserImportResult result =
+                userImporter.importUsers(
+                    reader,
+                    parser,
+                    error -> {
+                      try {
+                        writer.write(objectMapper.writeValueAsString(error));
+                        writer.write('\n');
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                      }
+                    });
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+          }
+        };
+    return ResponseEntity.ok().contentType(NDJSON).body(body);
+  }
+
+  @GetMapping("/user/{id}/stats")
+  public ResponseEntity<UserStats> getUserStats(@PathVariable int id) {
+    return ResponseEntity.ok(voteRollupService.getUserStats(id));
   }
 
   @DeleteMapping("/user/{id}")
   public ResponseEntity deleteUser(@PathVariable int id) {
-    userRepository.deleteById(id);
+    userService.deleteUser(id);
     return ResponseEntity.ok().build();
   }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
+  }
 }
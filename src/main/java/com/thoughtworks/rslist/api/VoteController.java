@@ -1,27 +1,52 @@
 package com.thoughtworks.rslist.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.repository.VoteArchiveRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 public class VoteController {
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+  private static final int PAGE_SIZE = 5;
+
   @Autowired VoteRepository voteRepository;
+  @Autowired VoteArchiveRepository voteArchiveRepository;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired ObjectMapper objectMapper;
 
   @GetMapping("/voteRecord")
+  @Transactional(readOnly = true)
   public ResponseEntity<List<Vote>> getVoteRecord(
       @RequestParam int userId, @RequestParam int rsEventId, @RequestParam int pageIndex) {
-    Pageable pageable = PageRequest.of(pageIndex - 1, 5);
-    return ResponseEntity.ok(
+    Pageable pageable = PageRequest.of(pageIndex - 1, PAGE_SIZE);
+    List<Vote> votes =
         voteRepository.findAllByUserIdAndRsEventId(userId, rsEventId, pageable).stream()
             .map(
                 item ->
@@ -31,6 +56,86 @@ public class VoteController {
                         .time(item.getLocalDateTime())
                         .rsEventId(item.getRsEvent().getId())
                         .build())
-            .collect(Collectors.toList()));
+            .collect(Collectors.toList());
+    if (votes.size() < PAGE_SIZE) {
+      long hotCount =
+          votes.isEmpty()
+              ? voteRepository.countByUserIdAndRsEventId(userId, rsEventId)
+              : pageable.getOffset() + votes.size();
+      votes.addAll(
+          findArchivedVotes(
+              userId,
+              rsEventId,
+              (int) (pageable.getOffset() + votes.size() - hotCount),
+              PAGE_SIZE - votes.size()));
+    }
+    return ResponseEntity.ok(votes);
+  }
+
+  @GetMapping("/voteRecord/export")
+  public ResponseEntity<StreamingResponseBody> exportVoteRecord(
+      @RequestParam(required = false) Integer userId,
+      @RequestParam(required = false) Integer rsEventId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "ndjson") String format) {
+    boolean csv = "csv".equalsIgnoreCase(format);
+    if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+      return ResponseEntity.badRequest().build();
+    }
+    LocalDateTime fromTime = from == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : from;
+    LocalDateTime toTime = to == null ? LocalDateTime.of(9999, 1, 1, 0, 0) : to;
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+    StreamingResponseBody body =
+        outputStream ->
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                  try (Writer writer =
+                      new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                    if (csv) {
+                      writer.write("userId,rsEventId,voteNum,time\n");
+                    }
+                    // Drain and close the archive cursor before opening the hot one, so the connection
+                    // holds one open result set at a time. On MySQL the fetch-size hint only streams
+                    // when the JDBC URL sets useCursorFetch=true; otherwise each query is buffered whole.
+                    try (Stream<Vote> archived =
+                        voteArchiveRepository.streamAllForExport(userId, rsEventId, fromTime, toTime)) {
+                      writeVotes(archived, writer, csv);
+                    }
+                    try (Stream<Vote> hot = voteRepository.streamAllForExport(userId, rsEventId, fromTime, toTime)) {
+                      writeVotes(hot, writer, csv);
+                    }
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+    return ResponseEntity.ok().contentType(csv ? CSV : NDJSON).body(body);
+  }
+
+  private List<Vote> findArchivedVotes(int userId, int rsEventId, int from, int count) {
+    int skip = from % PAGE_SIZE;
+    List<Vote> archived =
+        new ArrayList<>(
+            voteArchiveRepository.findAllByUserIdAndRsEventId(
+                userId, rsEventId, PageRequest.of(from / PAGE_SIZE, PAGE_SIZE)));
+    if (skip + count > PAGE_SIZE && archived.size() == PAGE_SIZE) {
+      archived.addAll(
+          voteArchiveRepository.findAllByUserIdAndRsEventId(
+              userId, rsEventId, PageRequest.of(from / PAGE_SIZE + 1, PAGE_SIZE)));
+    }
+    return archived.subList(Math.min(skip, archived.size()), Math.min(skip + count, archived.size()));
+  }
+
+  private void writeVotes(Stream<Vote> votes, Writer writer, boolean csv) throws IOException {
+    for (Vote vote : (Iterable<Vote>) votes::iterator) {
+      writer.write(csv ? toCsv(vote) : objectMapper.writeValueAsString(vote));
+      writer.write('\n');
+    }
+  }
+
+  private String toCsv(Vote vote) {
+    return vote.getUserId() + "," + vote.getRsEventId() + "," + vote.getVoteNum() + ","
+        + (vote.getTime() == null ? "" : vote.getTime().toString());
   }
 }
@@ -0,0 +1,67 @@
+package com.thoughtworks.rslist.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds vote and buy requests, including the board-prefixed buy path, with 503 once the shared
+ * adaptive limit is reached.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.limiter.enabled", havingValue = "true")
+public class AdaptiveLimitFilter extends OncePerRequestFilter {
+  private static final Pattern LIMITED_PATH = Pattern.compile("(/board/[^/]+)?/rs/(vote|buy)/");
+
+  private final AimdLimiter limiter;
+  private final Counter rejected;
+
+  public AdaptiveLimitFilter(
+      MeterRegistry meterRegistry,
+      @Value("${rs.limiter.initial-limit:20}") int initialLimit,
+      @Value("${rs.limiter.min-limit:1}") int minLimit,
+      @Value("${rs.limiter.max-limit:200}") int maxLimit,
+      @Value("${rs.limiter.target-latency:200}") long targetLatencyMillis,
+      @Value("${rs.limiter.backoff-ratio:0.5}") double backoffRatio) {
+    this.limiter =
+        new AimdLimiter(initialLimit, minLimit, maxLimit, targetLatencyMillis, backoffRatio);
+    this.rejected = meterRegistry.counter("rs.limiter.rejected");
+    meterRegistry.gauge("rs.limiter.limit", limiter, AimdLimiter::getLimit);
+    meterRegistry.gauge("rs.limiter.in-flight", limiter, AimdLimiter::getInFlight);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !HttpMethod.POST.matches(request.getMethod())
+        || !LIMITED_PATH.matcher(request.getRequestURI()).lookingAt();
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!limiter.tryAcquire()) {
+      rejected.increment();
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      limiter.release(System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.thoughtworks.rslist.config;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Only requests admitted after the last cut can cut again, so the limit backs off at most once per
+ * round trip.
+ */
+public class AimdLimiter {
+  private final int minLimit;
+  private final int maxLimit;
+  private final long targetLatencyNanos;
+  private final double backoffRatio;
+  private final LongSupplier nanoClock;
+  private double limit;
+  private int inFlight;
+  private boolean backedOff;
+  private long lastBackoffNanos;
+
+  public AimdLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis, double backoffRatio) {
+    this(initialLimit, minLimit, maxLimit, targetLatencyMillis, backoffRatio, System::nanoTime);
+  }
+
+  AimdLimiter(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      long targetLatencyMillis,
+      double backoffRatio,
+      LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.targetLatencyNanos = targetLatencyMillis * 1_000_000;
+    this.backoffRatio = backoffRatio;
+  }
+
+  public synchronized boolean tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  public synchronized void release(long latencyNanos) {
+    long now = nanoClock.getAsLong();
+    if (latencyNanos > targetLatencyNanos) {
+      if (!backedOff || now - latencyNanos - lastBackoffNanos >= 0) {
+        limit = Math.max(minLimit, limit * backoffRatio);
+        backedOff = true;
+        lastBackoffNanos = now;
+      }
+    } else if (inFlight * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1);
+    }
+    inFlight--;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+}
@@ -0,0 +1,45 @@
+package com.thoughtworks.rslist.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Bulkhead {
+  private final Semaphore permits;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final int maxWaiting;
+  private final long maxWaitMillis;
+
+  public Bulkhead(int maxConcurrent, int maxWaiting, long maxWaitMillis) {
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.maxWaiting = maxWaiting;
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  public boolean tryAcquire() throws InterruptedException {
+    if (permits.tryAcquire()) {
+      return true;
+    }
+    if (waiting.incrementAndGet() > maxWaiting) {
+      waiting.decrementAndGet();
+      return false;
+    }
+    try {
+      return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  public void release() {
+    permits.release();
+  }
+
+  public int getAvailablePermits() {
+    return permits.availablePermits();
+  }
+
+  public int getWaiting() {
+    return waiting.get();
+  }
+}
@@ -0,0 +1,126 @@
+package com.thoughtworks.rslist.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A waiting request holds a Tomcat worker too, so the concurrent plus waiting limits of both
+ * bulkheads must stay below server.tomcat.max-threads.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.bulkhead.enabled", havingValue = "true")
+public class BulkheadFilter extends OncePerRequestFilter {
+  private final Bulkhead readBulkhead;
+  private final Bulkhead writeBulkhead;
+  private final Counter readRejected;
+  private final Counter writeRejected;
+
+  public BulkheadFilter(
+      MeterRegistry meterRegistry,
+      @Value("${server.tomcat.max-threads:200}") int maxThreads,
+      @Value("${rs.bulkhead.read.max-concurrent:80}") int readMaxConcurrent,
+      @Value("${rs.bulkhead.read.max-waiting:20}") int readMaxWaiting,
+      @Value("${rs.bulkhead.read.max-wait:100}") long readMaxWaitMillis,
+      @Value("${rs.bulkhead.write.max-concurrent:40}") int writeMaxConcurrent,
+      @Value("${rs.bulkhead.write.max-waiting:10}") int writeMaxWaiting,
+      @Value("${rs.bulkhead.write.max-wait:100}") long writeMaxWaitMillis) {
+    if (readMaxConcurrent + readMaxWaiting + writeMaxConcurrent + writeMaxWaiting >= maxThreads) {
+      throw new IllegalArgumentException(
+          "bulkhead limits must add up to less than server.tomcat.max-threads");
+    }
+    this.readBulkhead = new Bulkhead(readMaxConcurrent, readMaxWaiting, readMaxWaitMillis);
+    this.writeBulkhead = new Bulkhead(writeMaxConcurrent, writeMaxWaiting, writeMaxWaitMillis);
+    this.readRejected = meterRegistry.counter("rs.bulkhead.rejected", "bulkhead", "read");
+    this.writeRejected = meterRegistry.counter("rs.bulkhead.rejected", "bulkhead", "write");
+    meterRegistry.gauge("rs.bulkhead.available", Tags.of("bulkhead", "read"), readBulkhead, Bulkhead::getAvailablePermits);
+    meterRegistry.gauge("rs.bulkhead.available", Tags.of("bulkhead", "write"), writeBulkhead, Bulkhead::getAvailablePermits);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getRequestURI().startsWith("/actuator");
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    boolean read =
+        HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    Bulkhead bulkhead = read ? readBulkhead : writeBulkhead;
+    boolean acquired;
+    try {
+      acquired = bulkhead.tryAcquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      (read ? readRejected : writeRejected).increment();
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      return;
+    }
+    boolean async = false;
+    try {
+      filterChain.doFilter(request, response);
+      if (request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new ReleaseOnCompletion(bulkhead));
+        async = true;
+      }
+    } finally {
+      if (!async) {
+        bulkhead.release();
+      }
+    }
+  }
+
+  private static class ReleaseOnCompletion implements AsyncListener {
+    private final Bulkhead bulkhead;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ReleaseOnCompletion(Bulkhead bulkhead) {
+      this.bulkhead = bulkhead;
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        bulkhead.release();
+      }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+  }
+}
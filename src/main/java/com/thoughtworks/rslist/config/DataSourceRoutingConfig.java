@@ -0,0 +1,59 @@
+package com.thoughtworks.rslist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The pools are deliberately not DataSource beans, so that only the routing DataSource is picked
+ * up by the JPA and initializer auto-configuration.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rs.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+  @Bean
+  public ReadWriteDataSources readWriteDataSources(Environment environment) {
+    Binder binder = Binder.get(environment);
+    HikariDataSource primary =
+        binder.bind("rs.datasource.primary", Bindable.ofInstance(new HikariDataSource())).get();
+    HikariDataSource replica =
+        binder.bind("rs.datasource.replica", Bindable.ofInstance(new HikariDataSource())).get();
+    return new ReadWriteDataSources(primary, replica);
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      ReadWriteDataSources readWriteDataSources,
+      @Value("${rs.datasource.replica.max-lag:0}") long maxLagMillis) {
+    return new ReplicaLagMonitor(
+        new JdbcTemplate(readWriteDataSources.getPrimary()),
+        new JdbcTemplate(readWriteDataSources.getReplica()),
+        maxLagMillis);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      ReadWriteDataSources readWriteDataSources, ReplicaLagMonitor replicaLagMonitor) {
+    Map<Object, Object> targetDataSources = new HashMap<>();
+    targetDataSources.put(ReadWriteRoutingDataSource.PRIMARY, readWriteDataSources.getPrimary());
+    targetDataSources.put(ReadWriteRoutingDataSource.REPLICA, readWriteDataSources.getReplica());
+    ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicaLagMonitor);
+    routingDataSource.setTargetDataSources(targetDataSources);
+    routingDataSource.setDefaultTargetDataSource(readWriteDataSources.getPrimary());
+    routingDataSource.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+
+@Getter
+@AllArgsConstructor
+public class ReadWriteDataSources implements Closeable {
+  private final HikariDataSource primary;
+  private final HikariDataSource replica;
+
+  @Override
+  public void close() {
+    primary.close();
+    replica.close();
+  }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+  public static final String PRIMARY = "primary";
+  public static final String REPLICA = "replica";
+
+  private final ReplicaLagMonitor replicaLagMonitor;
+
+  public ReadWriteRoutingDataSource(ReplicaLagMonitor replicaLagMonitor) {
+    this.replicaLagMonitor = replicaLagMonitor;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        && !replicaLagMonitor.isLagging()) {
+      return REPLICA;
+    }
+    return PRIMARY;
+  }
+}
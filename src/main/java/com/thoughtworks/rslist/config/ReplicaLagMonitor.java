@@ -0,0 +1,81 @@
+package com.thoughtworks.rslist.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Lag is measured from the write time of the oldest heartbeat the replica has not returned yet.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements InitializingBean {
+  private final JdbcTemplate primary;
+  private final JdbcTemplate replica;
+  private final long maxLagMillis;
+  private volatile boolean lagging;
+  private boolean tableCreated;
+  private long previousWrittenAt;
+
+  public ReplicaLagMonitor(JdbcTemplate primary, JdbcTemplate replica, long maxLagMillis) {
+    this.primary = primary;
+    this.replica = replica;
+    this.maxLagMillis = maxLagMillis;
+  }
+
+  public boolean isLagging() {
+    return lagging;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (maxLagMillis > 0) {
+      try {
+        createTable();
+      } catch (DataAccessException e) {
+        log.warn("failed to create replica heartbeat table, will retry", e);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rs.datasource.replica.lag-check-interval:1000}")
+  public synchronized void check() {
+    if (maxLagMillis <= 0) {
+      return;
+    }
+    try {
+      if (!tableCreated) {
+        createTable();
+      }
+      long writtenAt = System.currentTimeMillis();
+      if (primary.update("update replica_heartbeat set beat_at = ? where id = 1", writtenAt) == 0) {
+        primary.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", writtenAt);
+      }
+      Long beatAt =
+          replica.queryForObject("select beat_at from replica_heartbeat where id = 1", Long.class);
+      long readAt = System.currentTimeMillis();
+      long lag;
+      if (beatAt == null) {
+        lag = Long.MAX_VALUE;
+      } else if (beatAt >= writtenAt) {
+        lag = 0;
+      } else {
+        lag = readAt - (beatAt >= previousWrittenAt ? writtenAt : previousWrittenAt);
+      }
+      previousWrittenAt = writtenAt;
+      lagging = lag > maxLagMillis;
+    } catch (DataAccessException e) {
+      if (!lagging) {
+        log.warn("replica lag check failed, routing reads to primary", e);
+      }
+      lagging = true;
+    }
+  }
+
+  private void createTable() {
+    primary.execute(
+        "create table if not exists replica_heartbeat (id int primary key, beat_at bigint)");
+    tableCreated = true;
+  }
+}
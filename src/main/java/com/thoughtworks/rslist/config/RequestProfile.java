@@ -0,0 +1,63 @@
+package com.thoughtworks.rslist.config;
+
+import java.util.Locale;
+
+public class RequestProfile {
+  private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+  private final long startNanos = System.nanoTime();
+  private int sqlCount;
+  private long sqlNanos;
+  private long serviceNanos;
+  private long serializationNanos;
+  private int serviceDepth;
+
+  public static RequestProfile current() {
+    return CURRENT.get();
+  }
+
+  static RequestProfile start() {
+    RequestProfile profile = new RequestProfile();
+    CURRENT.set(profile);
+    return profile;
+  }
+
+  static void stop() {
+    CURRENT.remove();
+  }
+
+  public void addSql(long nanos) {
+    sqlCount++;
+    sqlNanos += nanos;
+  }
+
+  public boolean enterService() {
+    return serviceDepth++ == 0;
+  }
+
+  public void exitService(boolean outermost, long nanos) {
+    serviceDepth--;
+    if (outermost) {
+      serviceNanos += nanos;
+    }
+  }
+
+  public void addSerialization(long nanos) {
+    serializationNanos += nanos;
+  }
+
+  public String toServerTiming() {
+    return String.format(
+        Locale.ROOT,
+        "db;desc=\"%d statements\";dur=%.2f, service;dur=%.2f, serialize;dur=%.2f, total;dur=%.2f",
+        sqlCount,
+        millis(sqlNanos),
+        millis(serviceNanos),
+        millis(serializationNanos),
+        millis(System.nanoTime() - startNanos));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,119 @@
+package com.thoughtworks.rslist.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.service.RsService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.Statement;
+
+@Configuration
+@ConditionalOnProperty(name = "rs.profiler.enabled", havingValue = "true")
+public class ServerTimingConfig {
+  @Bean
+  public static BeanPostProcessor profilingBeanPostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+          return timeStatements(bean, DataSource.class);
+        }
+        if (bean instanceof RsService) {
+          return timeService(bean);
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+    return new MappingJackson2HttpMessageConverter(objectMapper) {
+      @Override
+      protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        RequestProfile profile = RequestProfile.current();
+        long start = System.nanoTime();
+        try {
+          super.writeInternal(object, type, outputMessage);
+        } finally {
+          if (profile != null) {
+            profile.addSerialization(System.nanoTime() - start);
+          }
+        }
+      }
+    };
+  }
+
+  private static Object timeService(Object bean) {
+    MethodInterceptor interceptor =
+        invocation -> {
+          RequestProfile profile = RequestProfile.current();
+          if (profile == null) {
+            return invocation.proceed();
+          }
+          boolean outermost = profile.enterService();
+          long start = System.nanoTime();
+          try {
+            return invocation.proceed();
+          } finally {
+            profile.exitService(outermost, System.nanoTime() - start);
+          }
+        };
+    if (bean instanceof Advised) {
+      ((Advised) bean).addAdvice(0, interceptor);
+      return bean;
+    }
+    ProxyFactory proxyFactory = new ProxyFactory(bean);
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAdvice(interceptor);
+    return proxyFactory.getProxy();
+  }
+
+  private static Object timeStatements(Object target, Class<?> type) {
+    return Proxy.newProxyInstance(
+        type.getClassLoader(),
+        new Class<?>[] {type},
+        (proxy, method, args) -> {
+          if (method.getName().equals("equals")) {
+            return proxy == args[0];
+          }
+          if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(proxy);
+          }
+          RequestProfile profile =
+              Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")
+                  ? RequestProfile.current()
+                  : null;
+          long start = System.nanoTime();
+          Object result;
+          try {
+            result = method.invoke(target, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          } finally {
+            if (profile != null) {
+              profile.addSql(System.nanoTime() - start);
+            }
+          }
+          Class<?> returnType = method.getReturnType();
+          if (result != null
+              && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType))) {
+            return timeStatements(result, returnType);
+          }
+          return result;
+        });
+  }
+}
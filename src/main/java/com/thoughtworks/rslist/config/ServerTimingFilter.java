@@ -0,0 +1,148 @@
+package com.thoughtworks.rslist.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Async responses are streamed, not buffered: their header is set when the initial dispatch ends
+ * and so leaves out the time spent writing the body.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.profiler.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+  private final double sampleRate;
+
+  public ServerTimingFilter(@Value("${rs.profiler.sample-rate:0.01}") double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getRequestURI().startsWith("/actuator");
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    SampledResponse sampledResponse = new SampledResponse(response);
+    RequestProfile profile = RequestProfile.start();
+    try {
+      filterChain.doFilter(request, sampledResponse);
+    } finally {
+      RequestProfile.stop();
+    }
+    sampledResponse.setHeader("Server-Timing", profile.toServerTiming());
+    if (isAsyncStarted(request)) {
+      sampledResponse.stream();
+    } else {
+      sampledResponse.copyBodyToResponse();
+    }
+  }
+
+  private static final class SampledResponse extends ContentCachingResponseWrapper {
+    private volatile boolean streaming;
+    private ServletOutputStream outputStream;
+
+    SampledResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    void stream() throws IOException {
+      copyBodyToResponse(false);
+      streaming = true;
+    }
+
+    // the stream may be handed out before async processing starts, so it switches targets itself
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (streaming) {
+        return getResponse().getOutputStream();
+      }
+      if (outputStream == null) {
+        ServletOutputStream buffered = super.getOutputStream();
+        outputStream =
+            new ServletOutputStream() {
+              @Override
+              public void write(int b) throws IOException {
+                target().write(b);
+              }
+
+              @Override
+              public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+              }
+
+              @Override
+              public void flush() throws IOException {
+                target().flush();
+              }
+
+              @Override
+              public boolean isReady() {
+                return buffered.isReady();
+              }
+
+              @Override
+              public void setWriteListener(WriteListener writeListener) {
+                buffered.setWriteListener(writeListener);
+              }
+
+              private ServletOutputStream target() throws IOException {
+                return streaming ? getResponse().getOutputStream() : buffered;
+              }
+            };
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      return streaming ? getResponse().getWriter() : super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (streaming) {
+        getResponse().flushBuffer();
+      } else {
+        super.flushBuffer();
+      }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+      if (streaming) {
+        getResponse().setContentLength(len);
+      } else {
+        super.setContentLength(len);
+      }
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+      if (streaming) {
+        getResponse().setContentLengthLong(len);
+      } else {
+        super.setContentLengthLong(len);
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.thoughtworks.rslist.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+/**
+ * With {@code rs.startup.benchmark.exit} the application shuts down afterwards, which is how the
+ * AppCDS training run ends.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "rs.startup.benchmark.enabled", havingValue = "true")
+public class StartupBenchmark implements ApplicationListener<ApplicationReadyEvent> {
+  private final String output;
+  private final boolean exit;
+  @Getter private long readyMillis;
+  @Getter private long firstListMillis;
+
+  public StartupBenchmark(
+      @Value("${rs.startup.benchmark.output:}") String output,
+      @Value("${rs.startup.benchmark.exit:false}") boolean exit) {
+    this.output = output;
+    this.exit = exit;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    WebServerApplicationContext context = (WebServerApplicationContext) event.getApplicationContext();
+    readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    int status = requestRsList(context.getWebServer().getPort());
+    firstListMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    log.info("ready after {} ms, first /rs/list ({}) after {} ms", readyMillis, status, firstListMillis);
+    if (!output.isEmpty()) {
+      writeResult(status);
+    }
+    if (exit) {
+      System.exit(SpringApplication.exit(context));
+    }
+  }
+
+  private int requestRsList(int port) {
+    try {
+      HttpURLConnection connection =
+          (HttpURLConnection) new URL("http://localhost:" + port + "/rs/list").openConnection();
+      int status = connection.getResponseCode();
+      try (InputStream body =
+          status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+        while (body != null && body.read() != -1) {}
+      }
+      return status;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeResult(int status) {
+    String line = LocalDateTime.now() + "," + readyMillis + "," + firstListMillis + "," + status;
+    try {
+      Files.write(
+          Paths.get(output),
+          Collections.singletonList(line),
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      log.warn("failed to write startup benchmark result to {}", output, e);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.api.RsController;
+import com.thoughtworks.rslist.service.RsBoard;
+import com.thoughtworks.rslist.service.RsService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Arrays;
+
+/**
+ * Scheduled methods are only registered once their bean is created, so those beans stay eager
+ * under lazy initialization.
+ */
+@Configuration
+public class StartupConfig {
+  @Bean
+  public static LazyInitializationExcludeFilter eagerBeansExcludeFilter() {
+    LazyInitializationExcludeFilter criticalPath =
+        LazyInitializationExcludeFilter.forBeanTypes(RsController.class, RsService.class, RsBoard.class);
+    return (beanName, beanDefinition, beanType) ->
+        criticalPath.isExcluded(beanName, beanDefinition, beanType) || hasScheduledMethods(beanType);
+  }
+
+  private static boolean hasScheduledMethods(Class<?> beanType) {
+    return beanType != null
+        && Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(beanType))
+            .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+  }
+}
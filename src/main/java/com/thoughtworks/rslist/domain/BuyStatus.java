@@ -0,0 +1,27 @@
+package com.thoughtworks.rslist.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BuyStatus {
+    public enum State {
+        PENDING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private String bidId;
+    private State state;
+    private String error;
+    @JsonIgnore
+    private long finishedAt;
+}
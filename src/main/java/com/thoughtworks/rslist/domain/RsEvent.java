@@ -1,5 +1,7 @@
 package com.thoughtworks.rslist.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,7 +12,7 @@ import java.io.Serializable;
 
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Data
 public class RsEvent implements Serializable {
   @NotNull private String eventName;
@@ -18,4 +20,7 @@ public class RsEvent implements Serializable {
   private int voteNum;
   @NotNull private int userId;
   private int rank;
+  @JsonIgnore private Integer id;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Integer userVoteNum;
 }
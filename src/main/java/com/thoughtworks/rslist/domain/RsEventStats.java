@@ -0,0 +1,19 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RsEventStats {
+    private int rsEventId;
+    private String granularity;
+    private List<VoteTotal> buckets;
+    private List<VoteTotal> topVoters;
+}
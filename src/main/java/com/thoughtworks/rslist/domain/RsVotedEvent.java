@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RsVotedEvent {
+    private int userId;
+    private int rsEventId;
+    private String keyword;
+    private int voteNum;
+    private LocalDateTime time;
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VoteTotal {
+    private Integer userId;
+    private Integer rsEventId;
+    private LocalDateTime bucketStart;
+    private long voteNum;
+}
@@ -0,0 +1,42 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "change_outbox", indexes = @Index(name = "idx_change_outbox_created_at", columnList = "createdAt"))
+public class ChangeRecordDto {
+  public enum Type {
+    VOTE,
+    TRADE,
+    RS_EVENT_ADDED,
+    RS_EVENT_DELETED,
+    USER_ADDED,
+    USER_DELETED
+  }
+
+  @Id @GeneratedValue private int id;
+  @Enumerated(EnumType.STRING)
+  private Type type;
+  private int rsEventId;
+  private int userId;
+  private int num;
+  private String keyword;
+  private String instanceId;
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,51 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+    name = "vote_rollup_event",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uk_vote_rollup_event_bucket",
+            columnNames = {"rsEventId", "granularity", "bucketStart"}))
+public class EventVoteRollupDto {
+  public enum Granularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+      this.unit = unit;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime time) {
+      return time.truncatedTo(unit);
+    }
+  }
+
+  @Id @GeneratedValue private int id;
+  private int rsEventId;
+  @Enumerated(EnumType.STRING)
+  private Granularity granularity;
+  private LocalDateTime bucketStart;
+  private int voteNum;
+}
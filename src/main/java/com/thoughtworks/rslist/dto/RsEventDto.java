@@ -4,8 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -13,9 +15,17 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "rsEvent")
+@Table(
+    name = "rsEvent",
+    indexes = {
+      @Index(name = "idx_rs_event_updated_at", columnList = "updatedAt"),
+      @Index(name = "idx_rs_event_board_rank", columnList = "board,rank,voteNum")
+    })
 public class RsEventDto {
+  public static final String DEFAULT_BOARD = "default";
+
   @Id @GeneratedValue private int id;
+  @Builder.Default private String board = DEFAULT_BOARD;
   private String eventName;
   private String keyword;
   private int voteNum;
@@ -23,4 +33,5 @@ public class RsEventDto {
   private int rank;
   @OneToMany(cascade = CascadeType.REMOVE, mappedBy = "rsEvent")
   private List<TradeDto> tradeDtoList;
+  @UpdateTimestamp private LocalDateTime updatedAt;
 }
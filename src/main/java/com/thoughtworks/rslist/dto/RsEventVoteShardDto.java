@@ -0,0 +1,28 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+    name = "rs_event_vote_shard",
+    uniqueConstraints =
+        @UniqueConstraint(name = "uk_vote_shard_event", columnNames = {"rsEventId", "shard"}))
+public class RsEventVoteShardDto {
+  @Id @GeneratedValue private int id;
+  private int rsEventId;
+  private int shard;
+  private int voteNum;
+}
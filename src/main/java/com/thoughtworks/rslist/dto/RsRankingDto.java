@@ -0,0 +1,30 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+    name = "rs_ranking",
+    indexes = {
+      @Index(name = "idx_rs_ranking_board_position", columnList = "board,position"),
+      @Index(name = "idx_rs_ranking_board_rank", columnList = "board,rank,voteNum")
+    })
+public class RsRankingDto {
+  @Id private int rsEventId;
+  private String board;
+  private int position;
+  private int rank;
+  private int voteNum;
+}
@@ -12,11 +12,13 @@ import javax.persistence.*;
 @Builder
 @Data
 @Entity
-@Table(name = "trade")
+@Table(name = "trade", indexes = @Index(name = "idx_trade_board_rank", columnList = "board,rank,amount"))
 public class TradeDto {
     @Id
     @GeneratedValue
     private int id;
+    @Builder.Default
+    private String board = RsEventDto.DEFAULT_BOARD;
     private double amount;
     private int rank;
     @ManyToOne
@@ -0,0 +1,30 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+    name = "vote_rollup_user_event",
+    uniqueConstraints =
+        @UniqueConstraint(name = "uk_vote_rollup_user_event", columnNames = {"userId", "rsEventId"}),
+    indexes = @Index(name = "idx_vote_rollup_user_event_event", columnList = "rsEventId,userId"))
+public class UserEventVoteRollupDto {
+  @Id @GeneratedValue private int id;
+  private int userId;
+  private int rsEventId;
+  private int voteNum;
+}
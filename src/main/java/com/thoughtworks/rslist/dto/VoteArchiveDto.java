@@ -0,0 +1,31 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+    name = "vote_archive",
+    indexes = {
+      @Index(name = "idx_vote_archive_user_event", columnList = "userId,rsEventId,id"),
+      @Index(name = "idx_vote_archive_time", columnList = "localDateTime")
+    })
+public class VoteArchiveDto {
+  @Id private int id;
+  private LocalDateTime localDateTime;
+  private int num;
+  private int userId;
+  private int rsEventId;
+}
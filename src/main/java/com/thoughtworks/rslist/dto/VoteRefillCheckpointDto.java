@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "vote_refill_checkpoint")
+public class VoteRefillCheckpointDto {
+  @Id private String job;
+  private LocalDate day;
+  private int lastUserId;
+  private boolean finished;
+}
@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+  private String error;
+
+  public ServiceUnavailableException(String error) {
+    this.error = error;
+  }
+
+  @Override
+  public String getMessage() {
+    return error;
+  }
+}
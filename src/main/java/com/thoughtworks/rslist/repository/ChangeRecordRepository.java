@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ChangeRecordRepository extends CrudRepository<ChangeRecordDto, Integer> {
+  List<ChangeRecordDto> findAllByCreatedAtAfterOrderByCreatedAtAsc(LocalDateTime createdAt);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ChangeRecordDto c where c.createdAt < :createdAt")
+  int deleteAllByCreatedAtBefore(@Param("createdAt") LocalDateTime createdAt);
+}
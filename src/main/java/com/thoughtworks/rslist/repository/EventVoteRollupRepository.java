@@ -0,0 +1,36 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.EventVoteRollupDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EventVoteRollupRepository extends CrudRepository<EventVoteRollupDto, Integer> {
+  @Modifying
+  @Query(
+      "update EventVoteRollupDto r set r.voteNum = r.voteNum + :num where r.rsEventId = :rsEventId"
+          + " and r.granularity = :granularity and r.bucketStart = :bucketStart")
+  int increaseVoteNum(
+      @Param("rsEventId") int rsEventId,
+      @Param("granularity") EventVoteRollupDto.Granularity granularity,
+      @Param("bucketStart") LocalDateTime bucketStart,
+      @Param("num") int num);
+
+  @Query(
+      "select r.bucketStart, sum(r.voteNum) from EventVoteRollupDto r where r.rsEventId = :rsEventId"
+          + " and r.granularity = :granularity and r.bucketStart >= :from and r.bucketStart < :to"
+          + " group by r.bucketStart order by r.bucketStart")
+  List<Object[]> sumVoteNumByBucket(
+      @Param("rsEventId") int rsEventId,
+      @Param("granularity") EventVoteRollupDto.Granularity granularity,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to);
+
+  @Modifying
+  @Query("delete from EventVoteRollupDto r")
+  int deleteAllRollups();
+}
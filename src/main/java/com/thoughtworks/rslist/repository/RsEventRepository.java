@@ -2,10 +2,22 @@ package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.RsEventDto;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface RsEventRepository extends PagingAndSortingRepository<RsEventDto, Integer> {
   List<RsEventDto> findAll();
@@ -15,5 +27,45 @@ public interface RsEventRepository extends PagingAndSortingRepository<RsEventDto
 
   void deleteByRank(int rank);
 
-  List<RsEventDto> findAllByOrderByRankAsc(Pageable pageable);
+  @EntityGraph(attributePaths = "user")
+  List<RsEventDto> findAllByBoardOrderByRankAsc(String board, Pageable pageable);
+
+  @EntityGraph(attributePaths = "user")
+  @Query(
+      "select e from RsEventDto e, RsRankingDto r where r.rsEventId = e.id"
+          + " and r.board = :board and r.position between :from and :to order by r.position")
+  List<RsEventDto> findAllByRankingPositionBetween(
+      @Param("board") String board, @Param("from") int from, @Param("to") int to);
+
+  List<RsEventDto> findAllByUpdatedAtAfter(LocalDateTime updatedAt);
+
+  @Query(
+      "select e.id, e.eventName, e.keyword, e.voteNum, e.user.id, e.rank from RsEventDto e"
+          + " where e.id in :ids")
+  List<Object[]> findAllByIdIn(@Param("ids") Collection<Integer> ids);
+
+  @Query("select e.id from RsEventDto e")
+  List<Integer> findAllIds();
+
+  @Query("select e.id from RsEventDto e where e.user.id = :userId")
+  List<Integer> findAllIdsByUserId(@Param("userId") int userId);
+
+  @Query("select distinct e.board from RsEventDto e")
+  List<String> findAllBoards();
+
+  boolean existsByBoardAndIdNot(String board, int id);
+
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query(
+      "select e.id, e.rank, e.voteNum + coalesce(sum(s.voteNum), 0) from RsEventDto e"
+          + " left join RsEventVoteShardDto s on s.rsEventId = e.id where e.board = :board"
+          + " group by e.id, e.rank, e.voteNum"
+          + " order by e.rank, e.voteNum + coalesce(sum(s.voteNum), 0) desc, e.id")
+  Stream<Object[]> streamListOrderByBoard(@Param("board") String board);
+
+  @Modifying
+  @Query(
+      "update RsEventDto e set e.voteNum = e.voteNum + :num, e.updatedAt = :updatedAt where e.id = :id")
+  int increaseVoteNum(
+      @Param("id") int id, @Param("num") int num, @Param("updatedAt") LocalDateTime updatedAt);
 }
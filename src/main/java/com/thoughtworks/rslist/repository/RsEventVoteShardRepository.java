@@ -0,0 +1,30 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RsEventVoteShardDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RsEventVoteShardRepository extends CrudRepository<RsEventVoteShardDto, Integer> {
+  @Modifying
+  @Query(
+      "update RsEventVoteShardDto s set s.voteNum = s.voteNum + :num "
+          + "where s.rsEventId = :rsEventId and s.shard = :shard")
+  int increaseVoteNum(
+      @Param("rsEventId") int rsEventId, @Param("shard") int shard, @Param("num") int num);
+
+  @Modifying
+  @Query("update RsEventVoteShardDto s set s.voteNum = s.voteNum - :num where s.id = :id")
+  int decreaseVoteNum(@Param("id") int id, @Param("num") int num);
+
+  @Query(
+      "select s.rsEventId, sum(s.voteNum) from RsEventVoteShardDto s "
+          + "where s.rsEventId in :rsEventIds group by s.rsEventId")
+  List<Object[]> sumVoteNumByRsEventIdIn(@Param("rsEventIds") Collection<Integer> rsEventIds);
+
+  List<RsEventVoteShardDto> findAllByVoteNumNot(int voteNum);
+}
@@ -0,0 +1,35 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RsRankingBoardDto;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface RsRankingBoardRepository extends CrudRepository<RsRankingBoardDto, String> {
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select b from RsRankingBoardDto b where b.board = :board")
+  Optional<RsRankingBoardDto> lock(@Param("board") String board);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "select b from RsRankingBoardDto b"
+          + " where b.board = (select r.board from RsRankingDto r where r.rsEventId = :id)")
+  Optional<RsRankingBoardDto> lockByRsEventId(@Param("id") int id);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select b from RsRankingBoardDto b order by b.board")
+  List<RsRankingBoardDto> lockAll();
+
+  @Query("select b.board from RsRankingBoardDto b where b.built = true")
+  List<String> findAllBuilt();
+
+  @Modifying
+  @Query("update RsRankingBoardDto b set b.built = true")
+  int markAllBuilt();
+}
@@ -0,0 +1,55 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RsRankingDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface RsRankingRepository extends CrudRepository<RsRankingDto, Integer> {
+  List<RsRankingDto> findAllByBoardOrderByPositionAsc(String board);
+
+  @Query(
+      "select count(r) from RsRankingDto r where r.board = :board and r.rsEventId <> :id and (r.rank < :rank"
+          + " or (r.rank = :rank and (r.voteNum > :voteNum or (r.voteNum = :voteNum and r.rsEventId < :id))))")
+  long countAhead(
+      @Param("board") String board,
+      @Param("rank") int rank,
+      @Param("voteNum") int voteNum,
+      @Param("id") int id);
+
+  @Modifying(flushAutomatically = true)
+  @Query(
+      "update RsRankingDto r set r.position = r.position + :delta"
+          + " where r.board = :board and r.position between :from and :to")
+  int shift(
+      @Param("board") String board,
+      @Param("from") int from,
+      @Param("to") int to,
+      @Param("delta") int delta);
+
+  @Query("select r.position, r.rank, r.voteNum from RsRankingDto r where r.rsEventId = :id")
+  List<Object[]> findPlacement(@Param("id") int id);
+
+  @Modifying
+  @Query("update RsRankingDto r set r.voteNum = r.voteNum + :num where r.rsEventId = :id")
+  int increaseVoteNum(@Param("id") int id, @Param("num") int num);
+
+  @Modifying
+  @Query("update RsRankingDto r set r.rank = :rank where r.rsEventId = :id")
+  int updateRank(@Param("id") int id, @Param("rank") int rank);
+
+  @Modifying
+  @Query("update RsRankingDto r set r.position = :position where r.rsEventId = :id")
+  int updatePosition(@Param("id") int id, @Param("position") int position);
+
+  @Modifying
+  @Query("delete from RsRankingDto r where r.rsEventId = :id")
+  int deleteByRsEventId(@Param("id") int id);
+
+  @Modifying
+  @Query("delete from RsRankingDto r")
+  void deleteAllRankings();
+}
@@ -10,5 +10,5 @@ public interface TradeRepository extends CrudRepository<TradeDto, Integer> {
     @Override
     List<TradeDto> findAll();
 
-    Optional<TradeDto> findFirstByRankOrderByAmountDesc(int rank);
+    Optional<TradeDto> findFirstByBoardAndRankOrderByAmountDesc(String board, int rank);
 }
@@ -0,0 +1,33 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.UserEventVoteRollupDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UserEventVoteRollupRepository extends CrudRepository<UserEventVoteRollupDto, Integer> {
+  @Modifying
+  @Query(
+      "update UserEventVoteRollupDto r set r.voteNum = r.voteNum + :num"
+          + " where r.userId = :userId and r.rsEventId = :rsEventId")
+  int increaseVoteNum(
+      @Param("userId") int userId, @Param("rsEventId") int rsEventId, @Param("num") int num);
+
+  @Query(
+      "select r.userId, sum(r.voteNum) from UserEventVoteRollupDto r where r.rsEventId = :rsEventId"
+          + " group by r.userId order by sum(r.voteNum) desc")
+  List<Object[]> findTopVoters(@Param("rsEventId") int rsEventId, Pageable pageable);
+
+  @Query(
+      "select r.rsEventId, sum(r.voteNum) from UserEventVoteRollupDto r where r.userId = :userId"
+          + " group by r.rsEventId order by r.rsEventId")
+  List<Object[]> sumVoteNumByRsEvent(@Param("userId") int userId);
+
+  @Modifying
+  @Query("delete from UserEventVoteRollupDto r")
+  int deleteAllRollups();
+}
@@ -1,10 +1,27 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.UserDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface UserRepository extends CrudRepository<UserDto, Integer> {
     List<UserDto> findAll();
+
+    @Query("select u.id from UserDto u")
+    List<Integer> findAllIds();
+
+    @Query("select max(u.id) from UserDto u")
+    Integer findMaxId();
+
+    @Modifying
+    @Query("update UserDto u set u.voteNum = u.voteNum - :num where u.id = :id and u.voteNum >= :num")
+    int decreaseVoteNum(@Param("id") int id, @Param("num") int num);
+
+    @Modifying
+    @Query("update UserDto u set u.voteNum = :budget where u.id between :from and :to and u.voteNum < :budget")
+    int refillVoteNum(@Param("from") int from, @Param("to") int to, @Param("budget") int budget);
 }
@@ -0,0 +1,51 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.VoteArchiveDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface VoteArchiveRepository extends CrudRepository<VoteArchiveDto, Integer> {
+  @Modifying
+  @Query(
+      "insert into VoteArchiveDto (id, localDateTime, num, userId, rsEventId)"
+          + " select v.id, v.localDateTime, v.num, v.user.id, v.rsEvent.id from VoteDto v where v.id in :ids")
+  int archiveVotes(@Param("ids") Collection<Integer> ids);
+
+  @Query(
+      "select new com.thoughtworks.rslist.domain.Vote(a.userId, a.rsEventId, a.localDateTime, a.num)"
+          + " from VoteArchiveDto a where a.userId = :userId and a.rsEventId = :rsEventId order by a.id")
+  List<Vote> findAllByUserIdAndRsEventId(
+      @Param("userId") int userId, @Param("rsEventId") int rsEventId, Pageable pageable);
+
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query(
+      "select new com.thoughtworks.rslist.domain.Vote(a.userId, a.rsEventId, a.localDateTime, a.num)"
+          + " from VoteArchiveDto a"
+          + " where (:userId is null or a.userId = :userId)"
+          + " and (:rsEventId is null or a.rsEventId = :rsEventId)"
+          + " and a.localDateTime >= :from and a.localDateTime < :to"
+          + " order by a.id")
+  Stream<Vote> streamAllForExport(
+      @Param("userId") Integer userId,
+      @Param("rsEventId") Integer rsEventId,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to);
+
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query("select a.userId, a.rsEventId, sum(a.num) from VoteArchiveDto a group by a.userId, a.rsEventId")
+  Stream<Object[]> streamVoteNumByUserAndRsEvent();
+}
@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.VoteRefillCheckpointDto;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+
+public interface VoteRefillCheckpointRepository extends CrudRepository<VoteRefillCheckpointDto, String> {
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select c from VoteRefillCheckpointDto c where c.job = :job")
+  VoteRefillCheckpointDto lock(@Param("job") String job);
+}
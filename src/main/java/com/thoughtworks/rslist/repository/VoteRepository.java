@@ -1,12 +1,47 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.VoteDto;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface VoteRepository extends PagingAndSortingRepository<VoteDto, Integer> {
     List<VoteDto> findAll();
+    @EntityGraph(attributePaths = {"user", "rsEvent", "rsEvent.user"})
     List<VoteDto> findAllByUserIdAndRsEventId(int userId, int rsEventId, Pageable pageable);
+    long countByUserIdAndRsEventId(int userId, int rsEventId);
+
+    @Query("select v.id from VoteDto v where v.localDateTime < :before or v.localDateTime is null order by v.id")
+    List<Integer> findIdsByLocalDateTimeBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("delete from VoteDto v where v.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) from VoteDto v"
+            + " where (:userId is null or v.user.id = :userId)"
+            + " and (:rsEventId is null or v.rsEvent.id = :rsEventId)"
+            + " and v.localDateTime >= :from and v.localDateTime < :to"
+            + " order by v.id")
+    Stream<Vote> streamAllForExport(@Param("userId") Integer userId, @Param("rsEventId") Integer rsEventId,
+                                    @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select v.user.id, v.rsEvent.id, sum(v.num) from VoteDto v group by v.user.id, v.rsEvent.id")
+    Stream<Object[]> streamVoteNumByUserAndRsEvent();
 }
@@ -0,0 +1,112 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.BuyStatus;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Statuses live in this instance's memory, so polling has to reach the instance that accepted the
+ * bid.
+ */
+@Service
+public class AsyncBuyService implements DisposableBean {
+  private final RsService rsService;
+  private final RsAuction rsAuction;
+  private final boolean enabled;
+  private final long statusRetentionMillis;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, BuyStatus> statuses = new ConcurrentHashMap<>();
+
+  public AsyncBuyService(
+      RsService rsService,
+      RsAuction rsAuction,
+      @Value("${rs.buy.async.enabled:false}") boolean enabled,
+      @Value("${rs.buy.async.pool-size:4}") int poolSize,
+      @Value("${rs.buy.async.queue-capacity:1000}") int queueCapacity,
+      @Value("${rs.buy.async.status-retention:600000}") long statusRetentionMillis) {
+    this.rsService = rsService;
+    this.rsAuction = rsAuction;
+    this.enabled = enabled;
+    this.statusRetentionMillis = statusRetentionMillis;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> new Thread(runnable, "rs-buy-" + threadCount.incrementAndGet()),
+            new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public BuyStatus submit(Trade trade, int rsEventId) {
+    return submit(RsEventDto.DEFAULT_BOARD, trade, rsEventId);
+  }
+
+  public BuyStatus submit(String board, Trade trade, int rsEventId) {
+    if (trade.getRank() < 1 || trade.getAmount() <= 0) {
+      throw new RequestNotValidException("invalid trade");
+    }
+    String bidId = UUID.randomUUID().toString();
+    BuyStatus pending = BuyStatus.builder().bidId(bidId).state(BuyStatus.State.PENDING).build();
+    statuses.put(bidId, pending);
+    try {
+      executor.execute(() -> statuses.put(bidId, process(bidId, board, trade, rsEventId)));
+    } catch (RuntimeException e) {
+      statuses.remove(bidId);
+      throw e;
+    }
+    return pending;
+  }
+
+  public BuyStatus getStatus(String bidId) {
+    return statuses.get(bidId);
+  }
+
+  @Scheduled(fixedDelayString = "${rs.buy.async.status-retention:600000}")
+  public void evictFinished() {
+    long expiredBefore = System.currentTimeMillis() - statusRetentionMillis;
+    statuses.values().removeIf(
+        status -> status.getState() != BuyStatus.State.PENDING && status.getFinishedAt() < expiredBefore);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  private BuyStatus process(String bidId, String board, Trade trade, int rsEventId) {
+    BuyStatus.BuyStatusBuilder status = BuyStatus.builder().bidId(bidId);
+    try {
+      if (rsAuction.isEnabled()) {
+        rsAuction.bid(board, trade, rsEventId);
+      } else {
+        rsService.buy(board, trade, rsEventId);
+      }
+      status.state(BuyStatus.State.SUCCEEDED);
+    } catch (RequestNotValidException e) {
+      status.state(BuyStatus.State.FAILED).error(e.getMessage());
+    } catch (RuntimeException e) {
+      status.state(BuyStatus.State.FAILED).error("buy failed");
+    }
+    return status.finishedAt(System.currentTimeMillis()).build();
+  }
+}
@@ -0,0 +1,54 @@
+package com.thoughtworks.rslist.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class BloomFilter {
+  private final AtomicLongArray bits;
+  private final int bitCount;
+  private final int hashCount;
+
+  BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    this.bits = new AtomicLongArray((bitCount + 63) / 64);
+  }
+
+  void add(int value) {
+    long hash = mix(value);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      int bit = index(hash1 + i * hash2);
+      long mask = 1L << bit;
+      bits.getAndAccumulate(bit >>> 6, mask, (word, set) -> word | set);
+    }
+  }
+
+  boolean mightContain(int value) {
+    long hash = mix(value);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      int bit = index(hash1 + i * hash2);
+      if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int index(int combined) {
+    return (combined < 0 ? ~combined : combined) % bitCount;
+  }
+
+  private static long mix(int value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    return hash ^ (hash >>> 33);
+  }
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+@Name("com.thoughtworks.rslist.Buy")
+@Label("Buy")
+@Category({"RS List", "Writes"})
+@Description("RsService.buy; the rank field shows which ranks are contended")
+@Threshold("10 ms")
+class BuyJfrEvent extends jdk.jfr.Event {
+  @Label("Board") String board;
+  @Label("RS Event Id") int rsEventId;
+  @Label("Rank") int rank;
+  @Label("Amount") double amount;
+  @Label("Rows Touched") int rowsTouched;
+  @Label("Outcome") String outcome;
+}
@@ -0,0 +1,89 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.repository.ChangeRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+public class ChangeOutbox {
+  private final ChangeRecordRepository changeRecordRepository;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final boolean enabled;
+  private final String instanceId;
+  private final long pollOverlapMillis;
+  private final long retentionMillis;
+  private final Map<Integer, LocalDateTime> seenRecords = new HashMap<>();
+  private LocalDateTime polledAt = LocalDateTime.now();
+
+  public ChangeOutbox(
+      ChangeRecordRepository changeRecordRepository,
+      ApplicationEventPublisher applicationEventPublisher,
+      @Value("${rs.outbox.enabled:false}") boolean enabled,
+      @Value("${rs.outbox.instance-id:}") String instanceId,
+      @Value("${rs.outbox.poll-overlap:5000}") long pollOverlapMillis,
+      @Value("${rs.outbox.retention:3600000}") long retentionMillis) {
+    this.changeRecordRepository = changeRecordRepository;
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.enabled = enabled;
+    this.instanceId = instanceId.isEmpty() ? UUID.randomUUID().toString() : instanceId;
+    this.pollOverlapMillis = pollOverlapMillis;
+    this.retentionMillis = retentionMillis;
+  }
+
+  public void record(ChangeRecordDto.Type type, int rsEventId, int userId, int num) {
+    record(type, rsEventId, userId, num, null);
+  }
+
+  public void record(
+      ChangeRecordDto.Type type, int rsEventId, int userId, int num, String keyword) {
+    if (!enabled) {
+      return;
+    }
+    changeRecordRepository.save(
+        ChangeRecordDto.builder()
+            .type(type)
+            .rsEventId(rsEventId)
+            .userId(userId)
+            .num(num)
+            .keyword(keyword)
+            .instanceId(instanceId)
+            .createdAt(LocalDateTime.now())
+            .build());
+  }
+
+  @Scheduled(
+      fixedDelayString = "${rs.outbox.poll-interval:500}",
+      initialDelayString = "${rs.outbox.poll-interval:500}")
+  public synchronized void poll() {
+    if (!enabled) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime since = polledAt.minusNanos(pollOverlapMillis * 1_000_000);
+    for (ChangeRecordDto changeRecord :
+        changeRecordRepository.findAllByCreatedAtAfterOrderByCreatedAtAsc(since)) {
+      if (seenRecords.putIfAbsent(changeRecord.getId(), changeRecord.getCreatedAt()) == null
+          && !instanceId.equals(changeRecord.getInstanceId())) {
+        applicationEventPublisher.publishEvent(changeRecord);
+      }
+    }
+    seenRecords.values().removeIf(createdAt -> !createdAt.isAfter(since));
+    polledAt = now;
+  }
+
+  @Scheduled(fixedDelayString = "${rs.outbox.purge-interval:60000}")
+  public void purge() {
+    if (enabled) {
+      changeRecordRepository.deleteAllByCreatedAtBefore(
+          LocalDateTime.now().minusNanos(retentionMillis * 1_000_000));
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The change outbox must be enabled when more than one instance runs, otherwise ids inserted by
+ * other instances are rejected.
+ */
+@Component
+public class IdBloomFilters implements InitializingBean {
+  private final UserRepository userRepository;
+  private final RsEventRepository rsEventRepository;
+  private final boolean enabled;
+  private final long expectedInsertions;
+  private final double falsePositiveProbability;
+  private final IdFilter users;
+  private final IdFilter rsEvents;
+
+  public IdBloomFilters(
+      UserRepository userRepository,
+      RsEventRepository rsEventRepository,
+      MeterRegistry meterRegistry,
+      @Value("${rs.bloom.enabled:false}") boolean enabled,
+      @Value("${rs.bloom.expected-insertions:100000}") long expectedInsertions,
+      @Value("${rs.bloom.false-positive-probability:0.01}") double falsePositiveProbability) {
+    this.userRepository = userRepository;
+    this.rsEventRepository = rsEventRepository;
+    this.enabled = enabled;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveProbability = falsePositiveProbability;
+    this.users = new IdFilter(meterRegistry, "user");
+    this.rsEvents = new IdFilter(meterRegistry, "rs-event");
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    rebuild();
+  }
+
+  @Scheduled(
+      fixedDelayString = "${rs.bloom.rebuild-interval:600000}",
+      initialDelayString = "${rs.bloom.rebuild-interval:600000}")
+  public void rebuild() {
+    if (enabled) {
+      users.replace(build(userRepository.findAllIds()));
+      rsEvents.replace(build(rsEventRepository.findAllIds()));
+    }
+  }
+
+  public void userAdded(int userId) {
+    if (enabled) {
+      users.add(userId);
+    }
+  }
+
+  public void rsEventAdded(int rsEventId) {
+    if (enabled) {
+      rsEvents.add(rsEventId);
+    }
+  }
+
+  @EventListener
+  public void onChange(ChangeRecordDto changeRecord) {
+    if (changeRecord.getType() == ChangeRecordDto.Type.USER_ADDED) {
+      userAdded(changeRecord.getUserId());
+    } else if (changeRecord.getType() == ChangeRecordDto.Type.RS_EVENT_ADDED) {
+      rsEventAdded(changeRecord.getRsEventId());
+    }
+  }
+
+  public void requireUser(int userId) {
+    if (enabled && !users.mightContain(userId)) {
+      throw new RequestNotValidException("user not existed");
+    }
+  }
+
+  public void requireRsEvent(int rsEventId) {
+    if (enabled && !rsEvents.mightContain(rsEventId)) {
+      throw new RequestNotValidException("rs event not existed");
+    }
+  }
+
+  private BloomFilter build(List<Integer> ids) {
+    BloomFilter filter =
+        new BloomFilter(Math.max(expectedInsertions, ids.size() * 2L), falsePositiveProbability);
+    ids.forEach(filter::add);
+    return filter;
+  }
+
+  private static class IdFilter {
+    private final Counter absent;
+    private final Counter maybe;
+    private volatile BloomFilter current = new BloomFilter(1, 0.5);
+    private volatile BloomFilter previous;
+
+    private IdFilter(MeterRegistry meterRegistry, String name) {
+      this.absent = meterRegistry.counter("rs.bloom.lookups", "filter", name, "result", "absent");
+      this.maybe = meterRegistry.counter("rs.bloom.lookups", "filter", name, "result", "maybe");
+    }
+
+    private void add(int id) {
+      current.add(id);
+    }
+
+    private boolean mightContain(int id) {
+      BloomFilter current = this.current;
+      BloomFilter previous = this.previous;
+      boolean found = current.mightContain(id) || (previous != null && previous.mightContain(id));
+      (found ? maybe : absent).increment();
+      return found;
+    }
+
+    private void replace(BloomFilter rebuilt) {
+      previous = current;
+      current = rebuilt;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.KeywordTrend;
+import com.thoughtworks.rslist.domain.RsVotedEvent;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+@Component
+public class KeywordTrends {
+  private final boolean enabled;
+  private final int depth;
+  private final int width;
+  private final long bucketMillis;
+  private final int capacity;
+  private final long[] seeds;
+  private final int[][][] sketches;
+  private final long[] bucketEpochs;
+  private final String[] heapKeywords;
+  private final long[] heapEstimates;
+  private final Map<String, Integer> heapIndex = new HashMap<>();
+  private int heapSize;
+  private long currentEpoch = Long.MIN_VALUE;
+
+  public KeywordTrends(
+      @Value("${rs.keyword.trending.enabled:true}") boolean enabled,
+      @Value("${rs.keyword.trending.depth:4}") int depth,
+      @Value("${rs.keyword.trending.width:2048}") int width,
+      @Value("${rs.keyword.trending.window:600000}") long windowMillis,
+      @Value("${rs.keyword.trending.buckets:10}") int buckets,
+      @Value("${rs.keyword.trending.capacity:50}") int capacity) {
+    this.enabled = enabled;
+    this.depth = depth;
+    this.width = width;
+    this.bucketMillis = Math.max(1, windowMillis / buckets);
+    this.capacity = capacity;
+    this.seeds = new SplittableRandom().longs(depth).toArray();
+    this.sketches = new int[buckets][depth][width];
+    this.bucketEpochs = new long[buckets];
+    Arrays.fill(bucketEpochs, -1);
+    this.heapKeywords = new String[capacity];
+    this.heapEstimates = new long[capacity];
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onVoted(RsVotedEvent event) {
+    if (enabled && event.getKeyword() != null) {
+      record(event.getKeyword(), event.getVoteNum(), System.currentTimeMillis());
+    }
+  }
+
+  @EventListener
+  public void onChange(ChangeRecordDto changeRecord) {
+    if (enabled
+        && changeRecord.getType() == ChangeRecordDto.Type.VOTE
+        && changeRecord.getKeyword() != null) {
+      record(changeRecord.getKeyword(), changeRecord.getNum(), System.currentTimeMillis());
+    }
+  }
+
+  public List<KeywordTrend> getTrending(int top) {
+    return getTrending(top, System.currentTimeMillis());
+  }
+
+  synchronized void record(String keyword, int count, long nowMillis) {
+    advance(nowMillis);
+    int[][] sketch = sketches[(int) (currentEpoch % sketches.length)];
+    int[] cells = cells(keyword);
+    for (int row = 0; row < depth; row++) {
+      sketch[row][cells[row]] += count;
+    }
+    long estimate = estimate(cells);
+    Integer index = heapIndex.get(keyword);
+    if (index != null) {
+      heapEstimates[index] = estimate;
+      siftUp(siftDown(index));
+    } else if (heapSize < capacity) {
+      heapKeywords[heapSize] = keyword;
+      heapEstimates[heapSize] = estimate;
+      heapIndex.put(keyword, heapSize);
+      siftUp(heapSize++);
+    } else if (heapSize > 0 && heapEstimates[0] < estimate) {
+      heapIndex.remove(heapKeywords[0]);
+      heapKeywords[0] = keyword;
+      heapEstimates[0] = estimate;
+      heapIndex.put(keyword, 0);
+      siftDown(0);
+    }
+  }
+
+  synchronized List<KeywordTrend> getTrending(int top, long nowMillis) {
+    advance(nowMillis);
+    List<KeywordTrend> trending = new ArrayList<>(heapSize);
+    for (int i = 0; i < heapSize; i++) {
+      trending.add(
+          KeywordTrend.builder().keyword(heapKeywords[i]).voteNum(heapEstimates[i]).build());
+    }
+    trending.sort((a, b) -> Long.compare(b.getVoteNum(), a.getVoteNum()));
+    return trending.size() > top ? new ArrayList<>(trending.subList(0, top)) : trending;
+  }
+
+  private void advance(long nowMillis) {
+    long epoch = nowMillis / bucketMillis;
+    if (epoch <= currentEpoch) {
+      return;
+    }
+    for (int slot = 0; slot < sketches.length; slot++) {
+      if (bucketEpochs[slot] >= 0 && bucketEpochs[slot] <= epoch - sketches.length) {
+        clear(slot);
+      }
+    }
+    int slot = (int) (epoch % sketches.length);
+    if (bucketEpochs[slot] != epoch) {
+      clear(slot);
+      bucketEpochs[slot] = epoch;
+    }
+    currentEpoch = epoch;
+    int kept = 0;
+    heapIndex.clear();
+    for (int i = 0; i < heapSize; i++) {
+      long estimate = estimate(cells(heapKeywords[i]));
+      if (estimate > 0) {
+        heapKeywords[kept] = heapKeywords[i];
+        heapEstimates[kept] = estimate;
+        heapIndex.put(heapKeywords[kept], kept);
+        kept++;
+      }
+    }
+    Arrays.fill(heapKeywords, kept, heapSize, null);
+    heapSize = kept;
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(i);
+    }
+  }
+
+  private void clear(int slot) {
+    for (int[] row : sketches[slot]) {
+      Arrays.fill(row, 0);
+    }
+    bucketEpochs[slot] = -1;
+  }
+
+  private long estimate(int[] cells) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      long total = 0;
+      for (int[][] sketch : sketches) {
+        total += sketch[row][cells[row]];
+      }
+      estimate = Math.min(estimate, total);
+    }
+    return estimate;
+  }
+
+  private int[] cells(String keyword) {
+    int[] cells = new int[depth];
+    for (int row = 0; row < depth; row++) {
+      long hash = seeds[row];
+      for (int i = 0; i < keyword.length(); i++) {
+        hash = (hash ^ keyword.charAt(i)) * 0x100000001B3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 33;
+      hash *= 0xC4CEB9FE1A85EC53L;
+      hash ^= hash >>> 33;
+      cells[row] = (int) ((hash >>> 1) % width);
+    }
+    return cells;
+  }
+
+  private int siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (heapEstimates[parent] <= heapEstimates[index]) {
+        break;
+      }
+      swap(index, parent);
+      index = parent;
+    }
+    return index;
+  }
+
+  private int siftDown(int index) {
+    while (true) {
+      int smallest = index;
+      for (int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++) {
+        if (heapEstimates[child] < heapEstimates[smallest]) {
+          smallest = child;
+        }
+      }
+      if (smallest == index) {
+        return index;
+      }
+      swap(index, smallest);
+      index = smallest;
+    }
+  }
+
+  private void swap(int i, int j) {
+    String keyword = heapKeywords[i];
+    long estimate = heapEstimates[i];
+    heapKeywords[i] = heapKeywords[j];
+    heapEstimates[i] = heapEstimates[j];
+    heapKeywords[j] = keyword;
+    heapEstimates[j] = estimate;
+    heapIndex.put(heapKeywords[i], i);
+    heapIndex.put(heapKeywords[j], j);
+  }
+}
@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+@Name("com.thoughtworks.rslist.List")
+@Label("List")
+@Category({"RS List", "Reads"})
+@Description("RsService.getRsEventList for one page")
+@Threshold("10 ms")
+class ListJfrEvent extends jdk.jfr.Event {
+  @Label("Board") String board;
+  @Label("Page") int page;
+  @Label("From Board") boolean fromBoard;
+  @Label("Outcome") String outcome;
+  @Label("Rows Returned") int rowsReturned;
+}
@@ -0,0 +1,102 @@
+package com.thoughtworks.rslist.service;
+
+import java.util.function.LongPredicate;
+
+final class LongIntHashMap {
+  private static final long EMPTY = 0L;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  private boolean hasEmptyKey;
+  private int emptyKeyValue;
+
+  LongIntHashMap(int expectedSize) {
+    allocate(Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+  }
+
+  int get(long key) {
+    if (key == EMPTY) {
+      return hasEmptyKey ? emptyKeyValue : 0;
+    }
+    for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+    }
+    return 0;
+  }
+
+  void add(long key, int delta) {
+    if (key == EMPTY) {
+      hasEmptyKey = true;
+      emptyKeyValue += delta;
+      return;
+    }
+    int slot = slot(key);
+    for (; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        values[slot] += delta;
+        return;
+      }
+    }
+    keys[slot] = key;
+    values[slot] = delta;
+    if (++size * 3 > keys.length * 2) {
+      grow();
+    }
+  }
+
+  void removeIf(LongPredicate predicate) {
+    if (hasEmptyKey && predicate.test(EMPTY)) {
+      hasEmptyKey = false;
+      emptyKeyValue = 0;
+    }
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldKeys.length);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY && !predicate.test(oldKeys[i])) {
+        insert(oldKeys[i], oldValues[i]);
+        size++;
+      }
+    }
+  }
+
+  int size() {
+    return size + (hasEmptyKey ? 1 : 0);
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        insert(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private void insert(long key, int value) {
+    int slot = slot(key);
+    while (keys[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,158 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A round is cleared by one {@link RsService#clearRound} transaction: the highest bid that can be
+ * bought wins and the other bidders are rejected with "Payment not enough". A bidder whose round
+ * is not cleared within the timeout gets a {@link ServiceUnavailableException}.
+ */
+@Component
+public class RsAuction implements DisposableBean {
+  private final RsService rsService;
+  private final boolean enabled;
+  private final long windowMillis;
+  private final long timeoutMillis;
+  private final Map<List<Object>, List<Bid>> openRounds = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+
+  public RsAuction(
+      RsService rsService,
+      @Value("${rs.auction.enabled:false}") boolean enabled,
+      @Value("${rs.auction.window:50}") long windowMillis,
+      @Value("${rs.auction.pool-size:4}") int poolSize,
+      @Value("${rs.auction.timeout:5000}") long timeoutMillis) {
+    this.rsService = rsService;
+    this.enabled = enabled;
+    this.windowMillis = windowMillis;
+    this.timeoutMillis = timeoutMillis;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.scheduler =
+        Executors.newScheduledThreadPool(
+            poolSize,
+            runnable -> {
+              Thread thread = new Thread(runnable, "rs-auction-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void bid(Trade trade, int rsEventId) {
+    bid(RsEventDto.DEFAULT_BOARD, trade, rsEventId);
+  }
+
+  public void bid(String board, Trade trade, int rsEventId) {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    Bid bid = new Bid(board, trade, rsEventId, result);
+    openRounds.compute(
+        Arrays.asList(board, trade.getRank()),
+        (round, bids) -> {
+          if (bids == null) {
+            bids = new ArrayList<>();
+            scheduler.schedule(() -> clear(round), windowMillis, TimeUnit.MILLISECONDS);
+          }
+          bids.add(bid);
+          return bids;
+        });
+    if (!await(result) && (bid.claimed.compareAndSet(false, true) || !await(result))) {
+      throw new ServiceUnavailableException("auction round timed out");
+    }
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+    IllegalStateException shutdown = new IllegalStateException("auction is shutting down");
+    openRounds
+        .values()
+        .forEach(round -> round.forEach(bid -> bid.result.completeExceptionally(shutdown)));
+    openRounds.clear();
+  }
+
+  private boolean await(CompletableFuture<Void> result) {
+    try {
+      result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for auction round");
+    }
+  }
+
+  private void clear(List<Object> key) {
+    List<Bid> round = openRounds.remove(key);
+    if (round == null) {
+      return;
+    }
+    List<Bid> claimed =
+        round.stream()
+            .filter(bid -> bid.claimed.compareAndSet(false, true))
+            .sorted(Comparator.comparingDouble((Bid bid) -> bid.trade.getAmount()).reversed())
+            .collect(Collectors.toList());
+    if (claimed.isEmpty()) {
+      return;
+    }
+    try {
+      List<RequestNotValidException> rejections =
+          rsService.clearRound(
+              claimed.get(0).board,
+              claimed.stream().map(bid -> bid.trade).collect(Collectors.toList()),
+              claimed.stream().map(bid -> bid.rsEventId).collect(Collectors.toList()));
+      for (int i = 0; i < claimed.size(); i++) {
+        if (rejections.get(i) == null) {
+          claimed.get(i).result.complete(null);
+        } else {
+          claimed.get(i).result.completeExceptionally(rejections.get(i));
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      claimed.forEach(bid -> bid.result.completeExceptionally(e));
+    }
+  }
+
+  @AllArgsConstructor
+  private static class Bid {
+    private final String board;
+    private final Trade trade;
+    private final int rsEventId;
+    private final CompletableFuture<Void> result;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+  }
+}
@@ -0,0 +1,221 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local changes show up after the next scheduled refresh, other instances' changes as soon as the
+ * change outbox is polled.
+ */
+@Slf4j
+@Component
+public class RsBoard implements InitializingBean, DisposableBean {
+  private static final int SNAPSHOT_MAGIC = 0x52534244;
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final Comparator<RsEventDto> BOARD_ORDER =
+      Comparator.comparingInt(RsEventDto::getRank)
+          .thenComparing(Comparator.comparingInt(RsEventDto::getVoteNum).reversed())
+          .thenComparingInt(RsEventDto::getId);
+
+  private final RsEventRepository rsEventRepository;
+  private final boolean enabled;
+  private final Path snapshotFile;
+  private final long refreshOverlapMillis;
+  private volatile List<RsEventDto> rsEvents = Collections.emptyList();
+  private volatile Map<Integer, RsEventDto> rsEventsById = Collections.emptyMap();
+  private volatile boolean ready;
+  private LocalDateTime refreshedAt;
+
+  public RsBoard(
+      RsEventRepository rsEventRepository,
+      @Value("${rs.board.enabled:false}") boolean enabled,
+      @Value("${rs.board.snapshot-file:board.snapshot}") String snapshotFile,
+      @Value("${rs.board.refresh-overlap:5000}") long refreshOverlapMillis) {
+    this.rsEventRepository = rsEventRepository;
+    this.enabled = enabled;
+    this.snapshotFile = Paths.get(snapshotFile);
+    this.refreshOverlapMillis = refreshOverlapMillis;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!enabled) {
+      return;
+    }
+    loadSnapshot();
+    refresh();
+    ready = true;
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public List<RsEventDto> getPage(int page, int pageSize) {
+    List<RsEventDto> board = rsEvents;
+    int from = Math.min((page - 1) * pageSize, board.size());
+    return board.subList(from, Math.min(from + pageSize, board.size()));
+  }
+
+  public RsEventDto getById(int id) {
+    return rsEventsById.get(id);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${rs.board.refresh-interval:1000}",
+      initialDelayString = "${rs.board.refresh-interval:1000}")
+  public void scheduledRefresh() {
+    if (ready) {
+      refresh();
+    }
+  }
+
+  @EventListener
+  public synchronized void onChange(ChangeRecordDto changeRecord) {
+    if (ready
+        && changeRecord.getType() != ChangeRecordDto.Type.USER_ADDED
+        && changeRecord.getCreatedAt().isAfter(refreshedAt)) {
+      refresh();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rs.board.snapshot-interval:60000}")
+  public void scheduledSnapshot() {
+    if (ready) {
+      writeSnapshot();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (ready) {
+      writeSnapshot();
+    }
+  }
+
+  synchronized void refresh() {
+    LocalDateTime now = LocalDateTime.now();
+    List<RsEventDto> changed =
+        refreshedAt == null
+            ? rsEventRepository.findAll()
+            : rsEventRepository.findAllByUpdatedAtAfter(
+                refreshedAt.minusNanos(refreshOverlapMillis * 1_000_000));
+    Set<Integer> existingIds = new HashSet<>(rsEventRepository.findAllIds());
+    Map<Integer, RsEventDto> board = new HashMap<>();
+    for (RsEventDto rsEvent : rsEvents) {
+      if (existingIds.contains(rsEvent.getId())) {
+        board.put(rsEvent.getId(), rsEvent);
+      }
+    }
+    for (RsEventDto rsEvent : changed) {
+      if (RsEventDto.DEFAULT_BOARD.equals(rsEvent.getBoard())) {
+        board.put(rsEvent.getId(), rsEvent);
+      } else {
+        board.remove(rsEvent.getId());
+      }
+    }
+    List<RsEventDto> sorted = new ArrayList<>(board.values());
+    sorted.sort(BOARD_ORDER);
+    rsEvents = Collections.unmodifiableList(sorted);
+    rsEventsById = Collections.unmodifiableMap(board);
+    refreshedAt = now;
+  }
+
+  synchronized void writeSnapshot() {
+    Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeLong(Timestamp.valueOf(refreshedAt).getTime());
+      out.writeInt(rsEvents.size());
+      for (RsEventDto rsEvent : rsEvents) {
+        out.writeInt(rsEvent.getId());
+        writeNullableUTF(out, rsEvent.getEventName());
+        writeNullableUTF(out, rsEvent.getKeyword());
+        out.writeInt(rsEvent.getVoteNum());
+        out.writeInt(rsEvent.getRank());
+        out.writeInt(rsEvent.getUser().getId());
+      }
+    } catch (IOException e) {
+      log.warn("failed to write board snapshot {}", snapshotFile, e);
+      return;
+    }
+    try {
+      Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("failed to write board snapshot {}", snapshotFile, e);
+    }
+  }
+
+  private synchronized void loadSnapshot() {
+    if (!Files.exists(snapshotFile)) {
+      return;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+        log.warn("ignoring board snapshot {} with unknown format", snapshotFile);
+        return;
+      }
+      LocalDateTime snapshotAt = new Timestamp(in.readLong()).toLocalDateTime();
+      int size = in.readInt();
+      List<RsEventDto> loaded = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        loaded.add(
+            RsEventDto.builder()
+                .id(in.readInt())
+                .eventName(readNullableUTF(in))
+                .keyword(readNullableUTF(in))
+                .voteNum(in.readInt())
+                .rank(in.readInt())
+                .user(UserDto.builder().id(in.readInt()).build())
+                .build());
+      }
+      rsEvents = loaded;
+      refreshedAt = snapshotAt;
+    } catch (IOException e) {
+      log.warn("ignoring unreadable board snapshot {}", snapshotFile, e);
+    }
+  }
+
+  private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullableUTF(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
@@ -0,0 +1,86 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * start/end only slice the page in the controller, so board and page are the whole key.
+ */
+@Component
+public class RsListCoalescer {
+  private final RsService rsService;
+  private final boolean enabled;
+  private final long maxWaitMillis;
+  private final ConcurrentHashMap<List<Object>, CompletableFuture<List<RsEvent>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final Counter loads;
+  private final Counter coalesced;
+  private final Counter timeouts;
+
+  public RsListCoalescer(
+      RsService rsService,
+      MeterRegistry meterRegistry,
+      @Value("${rs.list.coalesce.enabled:false}") boolean enabled,
+      @Value("${rs.list.coalesce.max-wait:1000}") long maxWaitMillis) {
+    this.rsService = rsService;
+    this.enabled = enabled;
+    this.maxWaitMillis = maxWaitMillis;
+    this.loads = meterRegistry.counter("rs.list.coalesce.loads");
+    this.coalesced = meterRegistry.counter("rs.list.coalesce.coalesced");
+    this.timeouts = meterRegistry.counter("rs.list.coalesce.timeouts");
+    meterRegistry.gauge("rs.list.coalesce.ratio", this, RsListCoalescer::getCoalescingRatio);
+  }
+
+  public List<RsEvent> getRsEventList(String board, int page) {
+    if (!enabled) {
+      return rsService.getRsEventList(board, page);
+    }
+    List<Object> key = Arrays.asList(board, page);
+    CompletableFuture<List<RsEvent>> load = new CompletableFuture<>();
+    CompletableFuture<List<RsEvent>> existing = inFlight.putIfAbsent(key, load);
+    if (existing == null) {
+      loads.increment();
+      try {
+        List<RsEvent> rsEvents = Collections.unmodifiableList(rsService.getRsEventList(board, page));
+        load.complete(rsEvents);
+        return rsEvents;
+      } catch (RuntimeException e) {
+        load.completeExceptionally(e);
+        throw e;
+      } finally {
+        inFlight.remove(key, load);
+      }
+    }
+    coalesced.increment();
+    try {
+      return existing.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      timeouts.increment();
+      return rsService.getRsEventList(board, page);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException
+          ? (RuntimeException) e.getCause()
+          : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public double getCoalescingRatio() {
+    double total = loads.count() + coalesced.count();
+    return total == 0 ? 0 : coalesced.count() / total;
+  }
+}
@@ -0,0 +1,256 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsRankingBoardDto;
+import com.thoughtworks.rslist.dto.RsRankingDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.RsRankingBoardRepository;
+import com.thoughtworks.rslist.repository.RsRankingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Writers to a board are serialized by locking its rs_ranking_board row. Reads fall back to the
+ * sorted query until a board has been built, which happens at startup for boards that predate it.
+ */
+@Slf4j
+@Component
+public class RsRanking {
+  static final int REBUILD_CHUNK = 500;
+
+  private final RsRankingRepository rsRankingRepository;
+  private final RsRankingBoardRepository rsRankingBoardRepository;
+  private final RsEventRepository rsEventRepository;
+  private final TransactionTemplate newTransaction;
+  private final boolean enabled;
+  private final Set<String> builtBoards = ConcurrentHashMap.newKeySet();
+  @PersistenceContext private EntityManager entityManager;
+
+  public RsRanking(
+      RsRankingRepository rsRankingRepository,
+      RsRankingBoardRepository rsRankingBoardRepository,
+      RsEventRepository rsEventRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.ranking.enabled:false}") boolean enabled) {
+    this.rsRankingRepository = rsRankingRepository;
+    this.rsRankingBoardRepository = rsRankingBoardRepository;
+    this.rsEventRepository = rsEventRepository;
+    this.newTransaction = new TransactionTemplate(transactionManager);
+    this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isBuilt(String board) {
+    return enabled && builtBoards.contains(board);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildIfMissing() {
+    if (!enabled) {
+      return;
+    }
+    builtBoards.addAll(rsRankingBoardRepository.findAllBuilt());
+    if (!builtBoards.containsAll(rsEventRepository.findAllBoards())) {
+      try {
+        newTransaction.executeWithoutResult(status -> rebuild());
+      } catch (RuntimeException e) {
+        log.warn("initial ranking build failed, lists use the sorted query until a rebuild", e);
+      }
+    }
+  }
+
+  @Transactional
+  public void added(RsEventDto rsEvent) {
+    if (!enabled) {
+      return;
+    }
+    lockBoard(rsEvent);
+    int position =
+        (int) rsRankingRepository.countAhead(
+                rsEvent.getBoard(), rsEvent.getRank(), rsEvent.getVoteNum(), rsEvent.getId())
+            + 1;
+    rsRankingRepository.shift(rsEvent.getBoard(), position, Integer.MAX_VALUE, 1);
+    entityManager.persist(
+        RsRankingDto.builder()
+            .rsEventId(rsEvent.getId())
+            .board(rsEvent.getBoard())
+            .position(position)
+            .rank(rsEvent.getRank())
+            .voteNum(rsEvent.getVoteNum())
+            .build());
+  }
+
+  @Transactional
+  public void voted(int rsEventId, int voteNum) {
+    if (enabled) {
+      rsRankingBoardRepository
+          .lockByRsEventId(rsEventId)
+          .ifPresent(
+              board -> {
+                rsRankingRepository.increaseVoteNum(rsEventId, voteNum);
+                move(board.getBoard(), rsEventId);
+              });
+    }
+  }
+
+  @Transactional
+  public void ranked(int rsEventId, int rank) {
+    if (enabled) {
+      rsRankingBoardRepository
+          .lockByRsEventId(rsEventId)
+          .ifPresent(
+              board -> {
+                rsRankingRepository.updateRank(rsEventId, rank);
+                move(board.getBoard(), rsEventId);
+              });
+    }
+  }
+
+  @Transactional
+  public void removed(int rsEventId) {
+    if (enabled) {
+      rsRankingBoardRepository
+          .lockByRsEventId(rsEventId)
+          .ifPresent(
+              board -> {
+                List<Object[]> placements = rsRankingRepository.findPlacement(rsEventId);
+                if (placements.isEmpty()) {
+                  return;
+                }
+                int position = (Integer) placements.get(0)[0];
+                rsRankingRepository.deleteByRsEventId(rsEventId);
+                rsRankingRepository.shift(board.getBoard(), position + 1, Integer.MAX_VALUE, -1);
+              });
+    }
+  }
+
+  @Transactional
+  public void userRemoved(int userId) {
+    if (enabled) {
+      rsEventRepository.findAllIdsByUserId(userId).forEach(this::removed);
+    }
+  }
+
+  @Scheduled(cron = "${rs.ranking.rebuild-cron:-}")
+  @Transactional
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    rsEventRepository.findAllBoards().forEach(board -> createBoard(board, false));
+    List<RsRankingBoardDto> boards = rsRankingBoardRepository.lockAll();
+    rsRankingRepository.deleteAllRankings();
+    entityManager.unwrap(Session.class).setJdbcBatchSize(REBUILD_CHUNK);
+    for (RsRankingBoardDto board : boards) {
+      try (Stream<Object[]> rows = rsEventRepository.streamListOrderByBoard(board.getBoard())) {
+        int position = 0;
+        for (Iterator<Object[]> it = rows.iterator(); it.hasNext(); ) {
+          Object[] row = it.next();
+          entityManager.persist(
+              RsRankingDto.builder()
+                  .rsEventId((Integer) row[0])
+                  .board(board.getBoard())
+                  .position(++position)
+                  .rank((Integer) row[1])
+                  .voteNum(((Number) row[2]).intValue())
+                  .build());
+          if (position % REBUILD_CHUNK == 0) {
+            entityManager.flush();
+            entityManager.clear();
+          }
+        }
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+    rsRankingBoardRepository.markAllBuilt();
+    List<String> built = rsEventRepository.findAllBoards();
+    afterCommit(() -> builtBoards.addAll(built));
+  }
+
+  private void move(String board, int rsEventId) {
+    List<Object[]> placements = rsRankingRepository.findPlacement(rsEventId);
+    if (placements.isEmpty()) {
+      return;
+    }
+    Object[] placement = placements.get(0);
+    int from = (Integer) placement[0];
+    int to =
+        (int) rsRankingRepository.countAhead(
+                board, (Integer) placement[1], (Integer) placement[2], rsEventId)
+            + 1;
+    if (to < from) {
+      rsRankingRepository.shift(board, to, from - 1, 1);
+    } else if (to > from) {
+      rsRankingRepository.shift(board, from + 1, to, -1);
+    }
+    if (to != from) {
+      rsRankingRepository.updatePosition(rsEventId, to);
+    }
+  }
+
+  private void lockBoard(RsEventDto rsEvent) {
+    String board = rsEvent.getBoard();
+    if (!rsRankingBoardRepository.lock(board).isPresent()) {
+      boolean empty = !rsEventRepository.existsByBoardAndIdNot(board, rsEvent.getId());
+      if (createBoard(board, empty) && empty) {
+        afterCommit(() -> builtBoards.add(board));
+      }
+      rsRankingBoardRepository.lock(board);
+    }
+  }
+
+  private boolean createBoard(String board, boolean built) {
+    if (rsRankingBoardRepository.existsById(board)) {
+      return false;
+    }
+    try {
+      newTransaction.execute(
+          status ->
+              rsRankingBoardRepository.save(
+                  RsRankingBoardDto.builder().board(board).built(built).build()));
+      return true;
+    } catch (DataIntegrityViolationException e) {
+      // created by a concurrent writer
+      return false;
+    }
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+}
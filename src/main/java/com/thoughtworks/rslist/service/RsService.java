@@ -1,8 +1,10 @@
 package com.thoughtworks.rslist.service;
 
 import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsVotedEvent;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
@@ -12,6 +14,7 @@ import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -19,9 +22,15 @@ import org.springframework.data.domain.Sort.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,78 +39,319 @@ public class RsService {
   final RsEventRepository rsEventRepository;
   final UserRepository userRepository;
   final VoteRepository voteRepository;
+  final VoteShardCounter voteShardCounter;
+  final RsBoard rsBoard;
+  final RsRanking rsRanking;
+  final IdBloomFilters idBloomFilters;
+  final ChangeOutbox changeOutbox;
+  final UserEventVoteIndex userEventVoteIndex;
+  final ApplicationEventPublisher applicationEventPublisher;
 
-  public RsService(TradeRepository tradeRepository, RsEventRepository rsEventRepository, UserRepository userRepository, VoteRepository voteRepository) {
+  public RsService(TradeRepository tradeRepository, RsEventRepository rsEventRepository, UserRepository userRepository, VoteRepository voteRepository, VoteShardCounter voteShardCounter, RsBoard rsBoard, RsRanking rsRanking, IdBloomFilters idBloomFilters, ChangeOutbox changeOutbox, UserEventVoteIndex userEventVoteIndex, ApplicationEventPublisher applicationEventPublisher) {
     this.tradeRepository = tradeRepository;
     this.rsEventRepository = rsEventRepository;
     this.userRepository = userRepository;
     this.voteRepository = voteRepository;
+    this.voteShardCounter = voteShardCounter;
+    this.rsBoard = rsBoard;
+    this.rsRanking = rsRanking;
+    this.idBloomFilters = idBloomFilters;
+    this.changeOutbox = changeOutbox;
+    this.userEventVoteIndex = userEventVoteIndex;
+    this.applicationEventPublisher = applicationEventPublisher;
   }
 
+  @Transactional(readOnly = true)
   public List<RsEvent> getRsEventList(int page) {
+    return getRsEventList(RsEventDto.DEFAULT_BOARD, page);
+  }
+
+  @Transactional(readOnly = true)
+  public List<RsEvent> getRsEventList(String board, int page) {
+    ListJfrEvent event = new ListJfrEvent();
+    event.begin();
+    event.board = board;
+    event.page = page;
+    event.fromBoard = RsEventDto.DEFAULT_BOARD.equals(board) && rsBoard.isReady();
+    try {
+      List<RsEvent> rsEvents = loadRsEventList(board, page, event.fromBoard);
+      event.rowsReturned = rsEvents.size();
+      event.outcome = "ok";
+      return rsEvents;
+    } catch (RuntimeException e) {
+      event.outcome = outcomeOf(e);
+      throw e;
+    } finally {
+      event.commit();
+    }
+  }
+
+  private List<RsEvent> loadRsEventList(String board, int page, boolean fromBoard) {
     Order rankAsc = Order.asc("rank");
     Order voteDesc = Order.desc("voteNum");
     Sort sort = Sort.by(Arrays.asList(rankAsc,voteDesc));
     Pageable pageable = PageRequest.of(page - 1, 5, sort);
-    return rsEventRepository
-            .findAllByOrderByRankAsc(pageable)
+    List<RsEventDto> rsEventDtos;
+    if (fromBoard) {
+      rsEventDtos = rsBoard.getPage(page, 5);
+    } else if (rsRanking.isBuilt(board)) {
+      rsEventDtos = rsEventRepository.findAllByRankingPositionBetween(board, (page - 1) * 5 + 1, page * 5);
+    } else {
+      rsEventDtos = rsEventRepository.findAllByBoardOrderByRankAsc(board, pageable);
+    }
+    Map<Integer, Integer> unfoldedVoteNum = voteShardCounter.unfoldedVoteNum(
+            rsEventDtos.stream().map(RsEventDto::getId).collect(Collectors.toList()));
+    return rsEventDtos
             .stream()
-            .map(rsEventDto -> RsEvent.builder()
-                    .userId(rsEventDto.getUser().getId())
-                    .eventName(rsEventDto.getEventName())
-                    .keyword(rsEventDto.getKeyword())
-                    .rank(rsEventDto.getRank())
-                    .voteNum(rsEventDto.getVoteNum())
-                    .build()
-            ).collect(Collectors.toList());
+            .map(rsEventDto -> toRsEvent(rsEventDto, unfoldedVoteNum.getOrDefault(rsEventDto.getId(), 0)))
+            .collect(Collectors.toList());
+  }
+
+  /** Keeps the order of ids, with null for ids that don't exist. */
+  @Transactional(readOnly = true)
+  public List<RsEvent> getRsEvents(List<Integer> ids) {
+    Map<Integer, RsEvent> rsEvents = new HashMap<>();
+    Set<Integer> missing = new HashSet<>(ids);
+    if (rsBoard.isReady()) {
+      for (Integer id : ids) {
+        RsEventDto rsEventDto = rsBoard.getById(id);
+        if (rsEventDto != null) {
+          rsEvents.put(id, toRsEvent(rsEventDto, 0));
+          missing.remove(id);
+        }
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (Object[] row : rsEventRepository.findAllByIdIn(missing)) {
+        rsEvents.put((Integer) row[0], RsEvent.builder()
+                .id((Integer) row[0])
+                .eventName((String) row[1])
+                .keyword((String) row[2])
+                .voteNum((Integer) row[3])
+                .userId((Integer) row[4])
+                .rank((Integer) row[5])
+                .build());
+      }
+    }
+    voteShardCounter.unfoldedVoteNum(rsEvents.keySet())
+            .forEach((id, voteNum) -> rsEvents.get(id).setVoteNum(rsEvents.get(id).getVoteNum() + voteNum));
+    return ids.stream().map(rsEvents::get).collect(Collectors.toList());
+  }
+
+
+  @Transactional
+  public void addRsEvent(RsEvent rsEvent) {
+    addRsEvent(RsEventDto.DEFAULT_BOARD, rsEvent);
   }
 
+  @Transactional
+  public void addRsEvent(String board, RsEvent rsEvent) {
+    Optional<UserDto> userDto = userRepository.findById(rsEvent.getUserId());
+    if (!userDto.isPresent()) {
+      throw new RequestNotValidException("user not existed");
+    }
+    RsEventDto build =
+        RsEventDto.builder()
+            .keyword(rsEvent.getKeyword())
+            .eventName(rsEvent.getEventName())
+            .voteNum(0)
+            .board(board)
+            .user(userDto.get())
+            .build();
+    build = rsEventRepository.save(build);
+    idBloomFilters.rsEventAdded(build.getId());
+    voteShardCounter.created(build.getId());
+    rsRanking.added(build);
+    changeOutbox.record(ChangeRecordDto.Type.RS_EVENT_ADDED, build.getId(), rsEvent.getUserId(), 0);
+  }
 
   @Transactional
   public void vote(Vote vote, int rsEventId) {
+    recordVote(vote, rsEventId);
+  }
+
+  @Transactional
+  public int voteAll(List<Vote> votes) {
+    int rejected = 0;
+    for (Vote vote : votes) {
+      try {
+        recordVote(vote, vote.getRsEventId());
+      } catch (RequestNotValidException e) {
+        rejected++;
+      }
+    }
+    return rejected;
+  }
+
+  private void recordVote(Vote vote, int rsEventId) {
+    VoteJfrEvent event = new VoteJfrEvent();
+    event.begin();
+    event.rsEventId = rsEventId;
+    event.userId = vote.getUserId();
+    event.voteNum = vote.getVoteNum();
+    try {
+      event.rowsTouched = applyVote(vote, rsEventId);
+      event.outcome = "ok";
+    } catch (RuntimeException e) {
+      event.outcome = outcomeOf(e);
+      throw e;
+    } finally {
+      event.commit();
+    }
+  }
+
+  private int applyVote(Vote vote, int rsEventId) {
     Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
     Optional<UserDto> userDto = userRepository.findById(vote.getUserId());
-    if (!rsEventDto.isPresent()
-        || !userDto.isPresent()
-        || vote.getVoteNum() > userDto.get().getVoteNum()) {
-      throw new RuntimeException();
+    if (!rsEventDto.isPresent()) {
+      throw new RequestNotValidException("rs event not existed");
+    }
+    if (!userDto.isPresent()) {
+      throw new RequestNotValidException("user not existed");
+    }
+    if (vote.getVoteNum() > userDto.get().getVoteNum()) {
+      throw new RequestNotValidException("vote num not enough");
     }
+    LocalDateTime time = vote.getTime() == null ? LocalDateTime.now() : vote.getTime();
     VoteDto voteDto =
         VoteDto.builder()
-            .localDateTime(vote.getTime())
+            .localDateTime(time)
             .num(vote.getVoteNum())
             .rsEvent(rsEventDto.get())
             .user(userDto.get())
             .build();
-    voteRepository.save(voteDto);
     UserDto user = userDto.get();
-    user.setVoteNum(user.getVoteNum() - vote.getVoteNum());
-    userRepository.save(user);
+    int rows = userRepository.decreaseVoteNum(user.getId(), vote.getVoteNum());
+    if (rows == 0) {
+      throw new RequestNotValidException("vote num not enough");
+    }
+    voteRepository.save(voteDto);
+    rows++;
+    changeOutbox.record(
+            ChangeRecordDto.Type.VOTE,
+            rsEventId,
+            user.getId(),
+            vote.getVoteNum(),
+            rsEventDto.get().getKeyword());
+    applicationEventPublisher.publishEvent(RsVotedEvent.builder()
+            .userId(user.getId())
+            .rsEventId(rsEventId)
+            .keyword(rsEventDto.get().getKeyword())
+            .voteNum(vote.getVoteNum())
+            .time(time)
+            .build());
+    rsRanking.voted(rsEventId, vote.getVoteNum());
+    if (voteShardCounter.isEnabled()) {
+      return rows + voteShardCounter.increase(rsEventId, vote.getVoteNum());
+    }
     RsEventDto rsEvent = rsEventDto.get();
     rsEvent.setVoteNum(rsEvent.getVoteNum() + vote.getVoteNum());
     rsEventRepository.save(rsEvent);
+    return rows + 1;
   }
 
   @Transactional
   public void buy(Trade trade, int id) {
+    buy(RsEventDto.DEFAULT_BOARD, trade, id);
+  }
+
+  @Transactional
+  public void buy(String board, Trade trade, int id) {
+    recordBuy(board, trade, id);
+  }
+
+  /**
+   * Tries the trades, ordered by amount descending, until one is bought. Returns one entry per
+   * trade: null for the winner, otherwise why it was rejected. Every trade after the winner, or
+   * after a trade that was not enough, is rejected with "Payment not enough".
+   */
+  @Transactional
+  public List<RequestNotValidException> clearRound(String board, List<Trade> trades, List<Integer> ids) {
+    List<RequestNotValidException> rejections = new ArrayList<>();
+    boolean cleared = false;
+    for (int i = 0; i < trades.size(); i++) {
+      if (cleared) {
+        rejections.add(new RequestNotValidException("Payment not enough"));
+        continue;
+      }
+      try {
+        recordBuy(board, trades.get(i), ids.get(i));
+        cleared = true;
+        rejections.add(null);
+      } catch (RequestNotValidException e) {
+        cleared = "Payment not enough".equals(e.getMessage());
+        rejections.add(e);
+      }
+    }
+    return rejections;
+  }
+
+  private void recordBuy(String board, Trade trade, int id) {
+    BuyJfrEvent event = new BuyJfrEvent();
+    event.begin();
+    event.board = board;
+    event.rsEventId = id;
+    event.rank = trade.getRank();
+    event.amount = trade.getAmount();
+    try {
+      event.rowsTouched = applyBuy(board, trade, id);
+      event.outcome = "ok";
+    } catch (RuntimeException e) {
+      event.outcome = outcomeOf(e);
+      throw e;
+    } finally {
+      event.commit();
+    }
+  }
+
+  private int applyBuy(String board, Trade trade, int id) {
     Optional<RsEventDto> rsEventDto = rsEventRepository.findById(id);
-    if (!rsEventDto.isPresent()) {
+    if (!rsEventDto.isPresent() || !board.equals(rsEventDto.get().getBoard())) {
       throw new RequestNotValidException("rs event not existed");
     }
     RsEventDto rsEvent = rsEventDto.get();
     TradeDto tradeDto = TradeDto.builder()
             .amount(trade.getAmount())
             .rank(trade.getRank())
+            .board(board)
             .rsEvent(rsEvent)
             .build();
-    Optional<TradeDto> checkRankHistoryPrice = tradeRepository.findFirstByRankOrderByAmountDesc(trade.getRank());
+    Optional<TradeDto> checkRankHistoryPrice = tradeRepository.findFirstByBoardAndRankOrderByAmountDesc(board, trade.getRank());
     if (checkRankHistoryPrice.isPresent() && checkRankHistoryPrice.get().getAmount() >= trade.getAmount()) {
       throw new RequestNotValidException("Payment not enough");
     }
-    checkRankHistoryPrice.ifPresent(dto -> rsEventRepository.deleteById(dto.getRsEvent().getId()));
+    int rows = 0;
+    if (checkRankHistoryPrice.isPresent()) {
+      int displacedId = checkRankHistoryPrice.get().getRsEvent().getId();
+      rsEventRepository.deleteById(displacedId);
+      rows++;
+      rsRanking.removed(displacedId);
+      userEventVoteIndex.rsEventRemoved(displacedId);
+      changeOutbox.record(ChangeRecordDto.Type.RS_EVENT_DELETED, displacedId, 0, 0);
+    }
 
     rsEvent.setRank(trade.getRank());
     rsEventRepository.save(rsEvent);
+    rows++;
     tradeRepository.save(tradeDto);
+    rows++;
+    rsRanking.ranked(id, trade.getRank());
+    changeOutbox.record(ChangeRecordDto.Type.TRADE, id, rsEvent.getUser().getId(), trade.getRank());
+    return rows;
+  }
+
+  private static RsEvent toRsEvent(RsEventDto rsEventDto, int unfoldedVoteNum) {
+    return RsEvent.builder()
+            .id(rsEventDto.getId())
+            .userId(rsEventDto.getUser().getId())
+            .eventName(rsEventDto.getEventName())
+            .keyword(rsEventDto.getKeyword())
+            .rank(rsEventDto.getRank())
+            .voteNum(rsEventDto.getVoteNum() + unfoldedVoteNum)
+            .build();
+  }
+
+  private static String outcomeOf(RuntimeException e) {
+    return e instanceof RequestNotValidException ? e.getMessage() : e.getClass().getSimpleName();
   }
 }
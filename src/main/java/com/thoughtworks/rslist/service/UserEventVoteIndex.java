@@ -0,0 +1,137 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsVotedEvent;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.repository.VoteArchiveRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+@Component
+public class UserEventVoteIndex implements InitializingBean {
+  private final VoteRepository voteRepository;
+  private final VoteArchiveRepository voteArchiveRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final LongIntHashMap totals;
+
+  public UserEventVoteIndex(
+      VoteRepository voteRepository,
+      VoteArchiveRepository voteArchiveRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.vote.index.enabled:false}") boolean enabled,
+      @Value("${rs.vote.index.expected-size:1024}") int expectedSize) {
+    this.voteRepository = voteRepository;
+    this.voteArchiveRepository = voteArchiveRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.enabled = enabled;
+    this.totals = new LongIntHashMap(expectedSize);
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (enabled) {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            load(voteArchiveRepository.streamVoteNumByUserAndRsEvent());
+            load(voteRepository.streamVoteNumByUserAndRsEvent());
+          });
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public synchronized int getVoteNum(int userId, int rsEventId) {
+    return totals.get(key(userId, rsEventId));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onVoted(RsVotedEvent event) {
+    if (enabled) {
+      synchronized (this) {
+        totals.add(key(event.getUserId(), event.getRsEventId()), event.getVoteNum());
+      }
+    }
+  }
+
+  public void userRemoved(int userId) {
+    removeAfterCommit(key -> (int) (key >>> 32) == userId);
+  }
+
+  public void rsEventRemoved(int rsEventId) {
+    removeAfterCommit(key -> (int) key == rsEventId);
+  }
+
+  @EventListener
+  public void onChange(ChangeRecordDto changeRecord) {
+    if (!enabled) {
+      return;
+    }
+    switch (changeRecord.getType()) {
+      case VOTE:
+        synchronized (this) {
+          totals.add(
+              key(changeRecord.getUserId(), changeRecord.getRsEventId()), changeRecord.getNum());
+        }
+        break;
+      case USER_DELETED:
+        userRemoved(changeRecord.getUserId());
+        break;
+      case RS_EVENT_DELETED:
+        rsEventRemoved(changeRecord.getRsEventId());
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void removeAfterCommit(LongPredicate removed) {
+    if (!enabled) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      remove(removed);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            remove(removed);
+          }
+        });
+  }
+
+  private synchronized void remove(LongPredicate removed) {
+    totals.removeIf(removed);
+  }
+
+  private void load(Stream<Object[]> rows) {
+    try (Stream<Object[]> stream = rows) {
+      stream.forEach(
+          row -> {
+            synchronized (this) {
+              totals.add(
+                  key((Integer) row[0], (Integer) row[1]), ((Number) row[2]).intValue());
+            }
+          });
+    }
+  }
+
+  private static long key(int userId, int rsEventId) {
+    return (long) userId << 32 | (rsEventId & 0xFFFFFFFFL);
+  }
+}
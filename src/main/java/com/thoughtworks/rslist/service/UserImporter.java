@@ -0,0 +1,252 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.domain.UserImportError;
+import com.thoughtworks.rslist.domain.UserImportResult;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Rejected rows are handed to the caller as they are found, so memory is bounded by the chunk
+ * size.
+ */
+@Service
+public class UserImporter implements DisposableBean {
+  private static final List<String> CSV_COLUMNS =
+      Arrays.asList("userName", "gender", "age", "email", "phone");
+
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final IdBloomFilters idBloomFilters;
+  private final ChangeOutbox changeOutbox;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+  private final int parallelism;
+  private final ExecutorService executor;
+  @PersistenceContext private EntityManager entityManager;
+
+  public UserImporter(
+      Validator validator,
+      ObjectMapper objectMapper,
+      IdBloomFilters idBloomFilters,
+      ChangeOutbox changeOutbox,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.user.import.chunk-size:1000}") int chunkSize,
+      @Value("${rs.user.import.parallelism:4}") int parallelism) {
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.idBloomFilters = idBloomFilters;
+    this.changeOutbox = changeOutbox;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            runnable -> {
+              Thread thread = new Thread(runnable, "rs-user-import-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Turns one line of input into a {@link User}, throwing IllegalArgumentException if it can't. */
+  public interface RowParser {
+    User parse(String line);
+  }
+
+  public static RowParser csvParser(String header) {
+    List<String> columns =
+        header == null
+            ? Collections.emptyList()
+            : Arrays.stream(header.split(",", -1)).map(String::trim).collect(Collectors.toList());
+    if (!CSV_COLUMNS.containsAll(columns) || !columns.containsAll(Arrays.asList("userName", "phone"))) {
+      throw new RequestNotValidException("invalid csv header");
+    }
+    return line -> {
+      String[] fields = line.split(",", -1);
+      if (fields.length != columns.size()) {
+        throw new IllegalArgumentException(
+            "row has " + fields.length + " columns, expected " + columns.size());
+      }
+      User user = new User();
+      for (int i = 0; i < fields.length; i++) {
+        String value = fields[i].trim().isEmpty() ? null : fields[i].trim();
+        switch (columns.get(i)) {
+          case "userName":
+            user.setUserName(value);
+            break;
+          case "gender":
+            user.setGender(value);
+            break;
+          case "age":
+            try {
+              user.setAge(value == null ? 0 : Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+              throw new IllegalArgumentException("age: must be a number");
+            }
+            break;
+          case "email":
+            user.setEmail(value);
+            break;
+          default:
+            user.setPhone(value);
+        }
+      }
+      return user;
+    };
+  }
+
+  public RowParser ndjsonParser() {
+    return line -> {
+      try {
+        return objectMapper.readValue(line, User.class);
+      } catch (JsonProcessingException e) {
+        throw new IllegalArgumentException("malformed json");
+      }
+    };
+  }
+
+  public UserImportResult importUsers(
+      BufferedReader reader, RowParser parser, Consumer<UserImportError> errors) throws IOException {
+    long imported = 0;
+    long rejected = 0;
+    long rowNumber = 0;
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    String line;
+    do {
+      line = reader.readLine();
+      if (line != null) {
+        rowNumber++;
+        if (!line.trim().isEmpty()) {
+          chunk.add(new Row(rowNumber, line));
+        }
+      }
+      if (chunk.size() == chunkSize || (line == null && !chunk.isEmpty())) {
+        validate(chunk, parser);
+        List<UserDto> users = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+          if (row.errors.isEmpty()) {
+            users.add(toUserDto(row.user));
+          } else {
+            rejected++;
+            errors.accept(UserImportError.builder().row(row.number).errors(row.errors).build());
+          }
+        }
+        insert(users);
+        imported += users.size();
+        chunk.clear();
+      }
+    } while (line != null);
+    return UserImportResult.builder().imported(imported).rejected(rejected).build();
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private void validate(List<Row> chunk, RowParser parser) {
+    int sliceSize = (chunk.size() + parallelism - 1) / parallelism;
+    List<Callable<Void>> slices = new ArrayList<>();
+    for (int from = 0; from < chunk.size(); from += sliceSize) {
+      List<Row> slice = chunk.subList(from, Math.min(from + sliceSize, chunk.size()));
+      slices.add(
+          () -> {
+            slice.forEach(row -> validate(row, parser));
+            return null;
+          });
+    }
+    try {
+      for (Future<Void> future : executor.invokeAll(slices)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("user import interrupted", e);
+    } catch (ExecutionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private void validate(Row row, RowParser parser) {
+    try {
+      row.user = parser.parse(row.line);
+    } catch (IllegalArgumentException e) {
+      row.errors = Collections.singletonList(e.getMessage());
+      return;
+    }
+    row.errors =
+        validator.validate(row.user).stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.toList());
+  }
+
+  private void insert(List<UserDto> users) {
+    if (users.isEmpty()) {
+      return;
+    }
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+          users.forEach(entityManager::persist);
+          users.forEach(
+              user -> changeOutbox.record(ChangeRecordDto.Type.USER_ADDED, 0, user.getId(), 0));
+          entityManager.flush();
+          entityManager.clear();
+        });
+    users.forEach(user -> idBloomFilters.userAdded(user.getId()));
+  }
+
+  private static UserDto toUserDto(User user) {
+    return UserDto.builder()
+        .userName(user.getUserName())
+        .gender(user.getGender())
+        .age(user.getAge())
+        .email(user.getEmail())
+        .phone(user.getPhone())
+        .voteNum(user.getVoteNum())
+        .build();
+  }
+
+  private static class Row {
+    private final long number;
+    private final String line;
+    private User user;
+    private List<String> errors;
+
+    private Row(long number, String line) {
+      this.number = number;
+      this.line = line;
+    }
+  }
+}
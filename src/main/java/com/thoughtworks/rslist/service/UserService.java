@@ -0,0 +1,47 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class UserService {
+  final UserRepository userRepository;
+  final RsRanking rsRanking;
+  final ChangeOutbox changeOutbox;
+  final IdBloomFilters idBloomFilters;
+  final UserEventVoteIndex userEventVoteIndex;
+
+  public UserService(UserRepository userRepository, RsRanking rsRanking, ChangeOutbox changeOutbox, IdBloomFilters idBloomFilters, UserEventVoteIndex userEventVoteIndex) {
+    this.userRepository = userRepository;
+    this.rsRanking = rsRanking;
+    this.changeOutbox = changeOutbox;
+    this.idBloomFilters = idBloomFilters;
+    this.userEventVoteIndex = userEventVoteIndex;
+  }
+
+  @Transactional
+  public void register(User user) {
+    UserDto userDto = new UserDto();
+    userDto.setGender(user.getGender());
+    userDto.setPhone(user.getPhone());
+    userDto.setVoteNum(user.getVoteNum());
+    userDto.setAge(user.getAge());
+    userDto.setEmail(user.getEmail());
+    userDto.setUserName(user.getUserName());
+    userRepository.save(userDto);
+    idBloomFilters.userAdded(userDto.getId());
+    changeOutbox.record(ChangeRecordDto.Type.USER_ADDED, 0, userDto.getId(), 0);
+  }
+
+  @Transactional
+  public void deleteUser(int id) {
+    rsRanking.userRemoved(id);
+    userRepository.deleteById(id);
+    userEventVoteIndex.userRemoved(id);
+    changeOutbox.record(ChangeRecordDto.Type.USER_DELETED, 0, id, 0);
+  }
+}
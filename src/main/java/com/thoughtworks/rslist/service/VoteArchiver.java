@@ -0,0 +1,70 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.VoteArchiveRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+public class VoteArchiver {
+  private final VoteRepository voteRepository;
+  private final VoteArchiveRepository voteArchiveRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final long horizonMillis;
+  private final int chunkSize;
+  private final int maxChunks;
+
+  public VoteArchiver(
+      VoteRepository voteRepository,
+      VoteArchiveRepository voteArchiveRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.vote.archive.enabled:false}") boolean enabled,
+      @Value("${rs.vote.archive.horizon:2592000000}") long horizonMillis,
+      @Value("${rs.vote.archive.chunk-size:500}") int chunkSize,
+      @Value("${rs.vote.archive.max-chunks:20}") int maxChunks) {
+    this.voteRepository = voteRepository;
+    this.voteArchiveRepository = voteArchiveRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.horizonMillis = horizonMillis;
+    this.chunkSize = chunkSize;
+    this.maxChunks = maxChunks;
+  }
+
+  @Scheduled(fixedDelayString = "${rs.vote.archive.interval:60000}")
+  public void scheduledArchive() {
+    if (enabled) {
+      archive(LocalDateTime.now().minusNanos(horizonMillis * 1_000_000));
+    }
+  }
+
+  public synchronized int archive(LocalDateTime before) {
+    int archived = 0;
+    for (int chunk = 0; chunk < maxChunks; chunk++) {
+      Integer moved = transactionTemplate.execute(status -> archiveChunk(before));
+      archived += moved;
+      if (moved < chunkSize) {
+        break;
+      }
+    }
+    return archived;
+  }
+
+  private int archiveChunk(LocalDateTime before) {
+    List<Integer> ids = voteRepository.findIdsByLocalDateTimeBefore(before, PageRequest.of(0, chunkSize));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    voteArchiveRepository.archiveVotes(ids);
+    voteRepository.deleteAllByIdIn(ids);
+    return ids.size();
+  }
+}
@@ -0,0 +1,171 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.VoteRefillCheckpointDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRefillCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chunks are claimed by locking and advancing the checkpoint row, so concurrent instances split
+ * the run. Runs happen on their own thread so the throttle never holds up other scheduled jobs.
+ */
+@Slf4j
+@Component
+public class VoteBudgetRefill implements DisposableBean {
+  static final String JOB = "vote-budget";
+
+  private final UserRepository userRepository;
+  private final VoteRefillCheckpointRepository checkpointRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int budget;
+  private final int chunkSize;
+  private final long throttleMillis;
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "vote-budget-refill");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  public VoteBudgetRefill(
+      UserRepository userRepository,
+      VoteRefillCheckpointRepository checkpointRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.vote.refill.enabled:false}") boolean enabled,
+      @Value("${rs.vote.refill.budget:10}") int budget,
+      @Value("${rs.vote.refill.chunk-size:1000}") int chunkSize,
+      @Value("${rs.vote.refill.throttle:50}") long throttleMillis) {
+    this.userRepository = userRepository;
+    this.checkpointRepository = checkpointRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.budget = budget;
+    this.chunkSize = chunkSize;
+    this.throttleMillis = throttleMillis;
+  }
+
+  @Scheduled(cron = "${rs.vote.refill.cron:0 0 3 * * *}")
+  public void scheduledRefill() {
+    if (enabled) {
+      start(LocalDate.now());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rs.vote.refill.resume-interval:60000}")
+  public void resumeUnfinished() {
+    if (enabled) {
+      resume();
+    }
+  }
+
+  CompletableFuture<Integer> resume() {
+    return checkpointRepository
+        .findById(JOB)
+        .filter(checkpoint -> !checkpoint.isFinished())
+        .map(checkpoint -> start(checkpoint.getDay()))
+        .orElse(null);
+  }
+
+  CompletableFuture<Integer> start(LocalDate day) {
+    if (!running.compareAndSet(false, true)) {
+      return null;
+    }
+    return CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return refill(day);
+              } finally {
+                running.set(false);
+              }
+            },
+            executor)
+        .whenComplete(
+            (refilled, e) -> {
+              if (e != null) {
+                log.warn("vote budget refill for {} failed, will resume from the checkpoint", day, e);
+              }
+            });
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  public synchronized int refill(LocalDate day) {
+    createCheckpoint(day);
+    Integer maxId = userRepository.findMaxId();
+    int refilled = 0;
+    while (true) {
+      Integer rows = transactionTemplate.execute(status -> refillNextChunk(day, maxId));
+      if (rows == null) {
+        return refilled;
+      }
+      refilled += rows;
+      if (!pause()) {
+        return refilled;
+      }
+    }
+  }
+
+  private Integer refillNextChunk(LocalDate day, Integer maxId) {
+    VoteRefillCheckpointDto checkpoint = checkpointRepository.lock(JOB);
+    if (checkpoint.getDay().isBefore(day)) {
+      checkpoint.setDay(day);
+      checkpoint.setLastUserId(0);
+      checkpoint.setFinished(false);
+    } else if (checkpoint.getDay().isAfter(day) || checkpoint.isFinished()) {
+      return null;
+    }
+    if (maxId == null || checkpoint.getLastUserId() >= maxId) {
+      checkpoint.setFinished(true);
+      return null;
+    }
+    int from = checkpoint.getLastUserId() + 1;
+    int to = (int) Math.min((long) from + chunkSize - 1, maxId);
+    checkpoint.setLastUserId(to);
+    return userRepository.refillVoteNum(from, to, budget);
+  }
+
+  private void createCheckpoint(LocalDate day) {
+    if (checkpointRepository.existsById(JOB)) {
+      return;
+    }
+    try {
+      transactionTemplate.execute(
+          status ->
+              checkpointRepository.save(VoteRefillCheckpointDto.builder().job(JOB).day(day).build()));
+    } catch (DataIntegrityViolationException e) {
+      // created by another instance
+    }
+  }
+
+  private boolean pause() {
+    if (throttleMillis <= 0) {
+      return true;
+    }
+    try {
+      Thread.sleep(throttleMillis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
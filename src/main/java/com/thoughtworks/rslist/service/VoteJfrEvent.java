@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+@Name("com.thoughtworks.rslist.Vote")
+@Label("Vote")
+@Category({"RS List", "Writes"})
+@Description("RsService.vote, from lookup to the last write")
+@Threshold("10 ms")
+class VoteJfrEvent extends jdk.jfr.Event {
+  @Label("RS Event Id") int rsEventId;
+  @Label("User Id") int userId;
+  @Label("Vote Num") int voteNum;
+  @Label("Rows Touched") int rowsTouched;
+  @Label("Outcome") String outcome;
+}
@@ -0,0 +1,267 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Each record is {@value #RECORD_SIZE} bytes: a written flag, userId, rsEventId, num and the vote
+ * time in epoch micros.
+ */
+@Component
+public class VoteJournal implements DisposableBean {
+  static final int RECORD_SIZE = 24;
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final String CHECKPOINT_FILE = "checkpoint";
+  static final String DEAD_LETTER_FILE = "dead-letter";
+
+  public enum FsyncPolicy {
+    ALWAYS,
+    NEVER
+  }
+
+  private final boolean enabled;
+  private final Path directory;
+  private final int recordsPerSegment;
+  private final FsyncPolicy fsyncPolicy;
+  private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+  private final Object flushLock = new Object();
+  private long writeIndex;
+  private long checkpointIndex;
+  private volatile long durableIndex;
+
+  public VoteJournal(
+      @Value("${rs.vote.journal.enabled:false}") boolean enabled,
+      @Value("${rs.vote.journal.directory:journal}") String directory,
+      @Value("${rs.vote.journal.segment-records:65536}") int recordsPerSegment,
+      @Value("${rs.vote.journal.fsync:always}") String fsyncPolicy) {
+    this.enabled = enabled;
+    this.directory = Paths.get(directory);
+    this.recordsPerSegment = recordsPerSegment;
+    this.fsyncPolicy = FsyncPolicy.valueOf(fsyncPolicy.toUpperCase());
+    if (enabled) {
+      open();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void append(Vote vote, int rsEventId) {
+    long index;
+    synchronized (this) {
+      index = writeIndex;
+      MappedByteBuffer segment = segmentFor(index, true);
+      int position = (int) (index - segmentStart(index)) * RECORD_SIZE;
+      LocalDateTime time = vote.getTime() == null ? LocalDateTime.now() : vote.getTime();
+      segment.putInt(position + 4, vote.getUserId());
+      segment.putInt(position + 8, rsEventId);
+      segment.putInt(position + 12, vote.getVoteNum());
+      segment.putLong(position + 16, toEpochMicros(time));
+      segment.putInt(position, 1);
+      writeIndex = index + 1;
+    }
+    if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+      awaitDurable(index + 1);
+    }
+  }
+
+  public synchronized List<Vote> read(long fromIndex, int maxRecords) {
+    List<Vote> votes = new ArrayList<>();
+    for (long index = fromIndex; index < writeIndex && votes.size() < maxRecords; index++) {
+      MappedByteBuffer segment = segmentFor(index, false);
+      int position = (int) (index - segmentStart(index)) * RECORD_SIZE;
+      votes.add(
+          Vote.builder()
+              .userId(segment.getInt(position + 4))
+              .rsEventId(segment.getInt(position + 8))
+              .voteNum(segment.getInt(position + 12))
+              .time(fromEpochMicros(segment.getLong(position + 16)))
+              .build());
+    }
+    return votes;
+  }
+
+  public synchronized long getCheckpointIndex() {
+    return checkpointIndex;
+  }
+
+  public synchronized void checkpoint(long index) {
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, index);
+    Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.write(buffer);
+      channel.force(true);
+      Files.move(
+          temp,
+          directory.resolve(CHECKPOINT_FILE),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    checkpointIndex = index;
+    while (!segments.isEmpty()
+        && segments.firstKey() + recordsPerSegment <= index
+        && segments.firstKey() + recordsPerSegment <= writeIndex) {
+      deleteSegment(segments.pollFirstEntry().getKey());
+    }
+  }
+
+  /** Appends one "index,userId,rsEventId,num,time,reason" line; the caller then checkpoints past it. */
+  public synchronized void deadLetter(long index, Vote vote, String reason) {
+    String line =
+        index + "," + vote.getUserId() + "," + vote.getRsEventId() + "," + vote.getVoteNum() + ","
+            + vote.getTime() + "," + reason.replace('\n', ' ') + "\n";
+    try (FileChannel channel =
+        FileChannel.open(
+            directory.resolve(DEAD_LETTER_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+      channel.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (enabled) {
+      synchronized (this) {
+        segments.values().forEach(MappedByteBuffer::force);
+      }
+    }
+  }
+
+  private void awaitDurable(long index) {
+    synchronized (flushLock) {
+      if (durableIndex >= index) {
+        return;
+      }
+      long target;
+      List<MappedByteBuffer> dirty;
+      synchronized (this) {
+        target = writeIndex;
+        dirty = new ArrayList<>(segments.tailMap(segmentStart(durableIndex), true).values());
+      }
+      dirty.forEach(MappedByteBuffer::force);
+      durableIndex = target;
+    }
+  }
+
+  private void open() {
+    try {
+      Files.createDirectories(directory);
+      Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+      if (Files.exists(checkpointFile)) {
+        checkpointIndex = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+      }
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+        for (Path file : files) {
+          String name = file.getFileName().toString();
+          long start = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+          if (start + recordsPerSegment <= checkpointIndex) {
+            Files.delete(file);
+          } else {
+            segments.put(start, map(start));
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    writeIndex = checkpointIndex;
+    for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+      writeIndex = Math.max(writeIndex, segment.getKey());
+      MappedByteBuffer buffer = segment.getValue();
+      for (int record = 0; record < recordsPerSegment; record++) {
+        if (buffer.getInt(record * RECORD_SIZE) == 0) {
+          break;
+        }
+        writeIndex = Math.max(writeIndex, segment.getKey() + record + 1);
+      }
+    }
+    durableIndex = writeIndex;
+  }
+
+  private MappedByteBuffer segmentFor(long index, boolean create) {
+    long start = segmentStart(index);
+    MappedByteBuffer segment = segments.get(start);
+    if (segment == null) {
+      if (!create) {
+        throw new IllegalStateException("journal segment " + start + " is missing");
+      }
+      segment = map(start);
+      segments.put(start, segment);
+    }
+    return segment;
+  }
+
+  private MappedByteBuffer map(long start) {
+    try (FileChannel channel =
+        FileChannel.open(
+            segmentPath(start),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void deleteSegment(long start) {
+    try {
+      Files.deleteIfExists(segmentPath(start));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private long segmentStart(long index) {
+    return index - index % recordsPerSegment;
+  }
+
+  private Path segmentPath(long start) {
+    return directory.resolve(String.format("%020d%s", start, SEGMENT_SUFFIX));
+  }
+
+  private static long toEpochMicros(LocalDateTime time) {
+    Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+    return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+  }
+
+  private static LocalDateTime fromEpochMicros(long micros) {
+    return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneId.systemDefault());
+  }
+}
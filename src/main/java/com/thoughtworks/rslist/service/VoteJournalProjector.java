@@ -0,0 +1,101 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A transient failure leaves the checkpoint where it was, so the batch is retried. Any other
+ * failure re-applies the batch one vote at a time; a vote that still fails after
+ * {@code max-attempts} passes is dead-lettered and the checkpoint moves past it.
+ */
+@Slf4j
+@Component
+public class VoteJournalProjector {
+  private final VoteJournal voteJournal;
+  private final RsService rsService;
+  private final int batchSize;
+  private final int maxAttempts;
+  private long failedIndex = -1;
+  private int failedAttempts;
+
+  public VoteJournalProjector(
+      VoteJournal voteJournal,
+      RsService rsService,
+      @Value("${rs.vote.journal.batch-size:500}") int batchSize,
+      @Value("${rs.vote.journal.max-attempts:3}") int maxAttempts) {
+    this.voteJournal = voteJournal;
+    this.rsService = rsService;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+  }
+
+  @Scheduled(fixedDelayString = "${rs.vote.journal.project-interval:200}")
+  public void project() {
+    if (!voteJournal.isEnabled()) {
+      return;
+    }
+    List<Vote> votes;
+    do {
+      long from = voteJournal.getCheckpointIndex();
+      votes = voteJournal.read(from, batchSize);
+      if (votes.isEmpty()) {
+        return;
+      }
+      try {
+        int rejected = rsService.voteAll(votes);
+        if (rejected > 0) {
+          log.warn("skipped {} rejected journaled votes from index {}", rejected, from);
+        }
+      } catch (RuntimeException e) {
+        if (isTransient(e)) {
+          log.warn("failed to project journaled votes from index {}, will retry", from, e);
+        } else {
+          log.warn("failed to project journaled votes from index {}, applying one by one", from, e);
+          projectOneByOne(from, votes);
+        }
+        return;
+      }
+      voteJournal.checkpoint(from + votes.size());
+    } while (votes.size() == batchSize);
+  }
+
+  private void projectOneByOne(long from, List<Vote> votes) {
+    for (int i = 0; i < votes.size(); i++) {
+      long index = from + i;
+      try {
+        if (rsService.voteAll(Collections.singletonList(votes.get(i))) > 0) {
+          log.warn("skipped rejected journaled vote at index {}", index);
+        }
+      } catch (RuntimeException e) {
+        if (isTransient(e)) {
+          log.warn("failed to project journaled vote at index {}, will retry", index, e);
+          return;
+        }
+        failedAttempts = index == failedIndex ? failedAttempts + 1 : 1;
+        failedIndex = index;
+        if (failedAttempts < maxAttempts) {
+          log.warn("failed to project journaled vote at index {}, attempt {} of {}", index, failedAttempts, maxAttempts, e);
+          return;
+        }
+        log.error("dead-lettering journaled vote at index {} after {} attempts", index, failedAttempts, e);
+        voteJournal.deadLetter(index, votes.get(i), e.toString());
+      }
+      voteJournal.checkpoint(index + 1);
+    }
+  }
+
+  private static boolean isTransient(RuntimeException e) {
+    return e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException
+        || e instanceof CannotCreateTransactionException;
+  }
+}
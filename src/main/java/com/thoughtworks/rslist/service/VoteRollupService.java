@@ -0,0 +1,268 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEventStats;
+import com.thoughtworks.rslist.domain.RsVotedEvent;
+import com.thoughtworks.rslist.domain.UserStats;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteTotal;
+import com.thoughtworks.rslist.dto.EventVoteRollupDto;
+import com.thoughtworks.rslist.dto.EventVoteRollupDto.Granularity;
+import com.thoughtworks.rslist.dto.UserEventVoteRollupDto;
+import com.thoughtworks.rslist.repository.EventVoteRollupRepository;
+import com.thoughtworks.rslist.repository.UserEventVoteRollupRepository;
+import com.thoughtworks.rslist.repository.VoteArchiveRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class VoteRollupService implements ApplicationRunner {
+  private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+  private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 1, 1, 0, 0);
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final EventVoteRollupRepository eventVoteRollupRepository;
+  private final UserEventVoteRollupRepository userEventVoteRollupRepository;
+  private final VoteRepository voteRepository;
+  private final VoteArchiveRepository voteArchiveRepository;
+  private final boolean enabled;
+  private final boolean backfillOnStartup;
+  private final int batchSize;
+  private final TransactionTemplate transactionTemplate;
+  private final Queue<RsVotedEvent> pending = new ConcurrentLinkedQueue<>();
+
+  public VoteRollupService(
+      EventVoteRollupRepository eventVoteRollupRepository,
+      UserEventVoteRollupRepository userEventVoteRollupRepository,
+      VoteRepository voteRepository,
+      VoteArchiveRepository voteArchiveRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.rollup.enabled:false}") boolean enabled,
+      @Value("${rs.rollup.backfill-on-startup:false}") boolean backfillOnStartup,
+      @Value("${rs.rollup.batch-size:500}") int batchSize) {
+    this.eventVoteRollupRepository = eventVoteRollupRepository;
+    this.userEventVoteRollupRepository = userEventVoteRollupRepository;
+    this.voteRepository = voteRepository;
+    this.voteArchiveRepository = voteArchiveRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.backfillOnStartup = backfillOnStartup;
+    this.batchSize = batchSize;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onVoted(RsVotedEvent event) {
+    if (enabled) {
+      pending.add(event);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rs.rollup.flush-interval:200}")
+  public synchronized void flush() {
+    while (!pending.isEmpty()) {
+      List<RsVotedEvent> batch = new ArrayList<>();
+      Map<List<Object>, Integer> eventBuckets = new HashMap<>();
+      Map<List<Integer>, Integer> userEventTotals = new HashMap<>();
+      RsVotedEvent event;
+      while (batch.size() < batchSize && (event = pending.poll()) != null) {
+        batch.add(event);
+        for (Granularity granularity : Granularity.values()) {
+          eventBuckets.merge(
+              Arrays.asList(
+                  event.getRsEventId(), granularity, granularity.bucketStart(event.getTime())),
+              event.getVoteNum(),
+              Integer::sum);
+        }
+        userEventTotals.merge(
+            Arrays.asList(event.getUserId(), event.getRsEventId()),
+            event.getVoteNum(),
+            Integer::sum);
+      }
+      try {
+        apply(eventBuckets, userEventTotals);
+      } catch (RuntimeException e) {
+        log.warn("failed to apply {} votes to rollups, will retry", batch.size(), e);
+        pending.addAll(batch);
+        return;
+      }
+    }
+  }
+
+  private void apply(
+      Map<List<Object>, Integer> eventBuckets, Map<List<Integer>, Integer> userEventTotals) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        transactionTemplate.execute(
+            status -> {
+              eventBuckets.forEach(this::upsertEventBucket);
+              userEventTotals.forEach(this::upsertUserEventTotal);
+              return null;
+            });
+        return;
+      } catch (DataIntegrityViolationException e) {
+        if (attempt == MAX_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private void upsertEventBucket(List<Object> key, int voteNum) {
+    int rsEventId = (Integer) key.get(0);
+    Granularity granularity = (Granularity) key.get(1);
+    LocalDateTime bucketStart = (LocalDateTime) key.get(2);
+    if (eventVoteRollupRepository.increaseVoteNum(rsEventId, granularity, bucketStart, voteNum)
+        == 0) {
+      eventVoteRollupRepository.save(
+          EventVoteRollupDto.builder()
+              .rsEventId(rsEventId)
+              .granularity(granularity)
+              .bucketStart(bucketStart)
+              .voteNum(voteNum)
+              .build());
+    }
+  }
+
+  private void upsertUserEventTotal(List<Integer> key, int voteNum) {
+    if (userEventVoteRollupRepository.increaseVoteNum(key.get(0), key.get(1), voteNum) == 0) {
+      userEventVoteRollupRepository.save(
+          UserEventVoteRollupDto.builder()
+              .userId(key.get(0))
+              .rsEventId(key.get(1))
+              .voteNum(voteNum)
+              .build());
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public RsEventStats getRsEventStats(
+      int rsEventId, Granularity granularity, LocalDateTime from, LocalDateTime to, int top) {
+    List<VoteTotal> buckets =
+        eventVoteRollupRepository
+            .sumVoteNumByBucket(
+                rsEventId,
+                granularity,
+                from == null ? MIN_TIME : from,
+                to == null ? MAX_TIME : to)
+            .stream()
+            .map(
+                row ->
+                    VoteTotal.builder()
+                        .bucketStart((LocalDateTime) row[0])
+                        .voteNum(((Number) row[1]).longValue())
+                        .build())
+            .collect(Collectors.toList());
+    List<VoteTotal> topVoters =
+        userEventVoteRollupRepository.findTopVoters(rsEventId, PageRequest.of(0, top)).stream()
+            .map(
+                row ->
+                    VoteTotal.builder()
+                        .userId((Integer) row[0])
+                        .voteNum(((Number) row[1]).longValue())
+                        .build())
+            .collect(Collectors.toList());
+    return RsEventStats.builder()
+        .rsEventId(rsEventId)
+        .granularity(granularity.name().toLowerCase())
+        .buckets(buckets)
+        .topVoters(topVoters)
+        .build();
+  }
+
+  @Transactional(readOnly = true)
+  public UserStats getUserStats(int userId) {
+    List<VoteTotal> rsEvents =
+        userEventVoteRollupRepository.sumVoteNumByRsEvent(userId).stream()
+            .map(
+                row ->
+                    VoteTotal.builder()
+                        .rsEventId((Integer) row[0])
+                        .voteNum(((Number) row[1]).longValue())
+                        .build())
+            .collect(Collectors.toList());
+    return UserStats.builder()
+        .userId(userId)
+        .voteNum(rsEvents.stream().mapToLong(VoteTotal::getVoteNum).sum())
+        .rsEvents(rsEvents)
+        .build();
+  }
+
+  @Transactional
+  public synchronized void backfill() {
+    pending.clear();
+    eventVoteRollupRepository.deleteAllRollups();
+    userEventVoteRollupRepository.deleteAllRollups();
+    Map<List<Object>, Integer> eventBuckets = new HashMap<>();
+    Map<List<Integer>, Integer> userEventTotals = new HashMap<>();
+    try (Stream<Vote> votes =
+        Stream.concat(
+            voteArchiveRepository.streamAllForExport(null, null, MIN_TIME, MAX_TIME),
+            voteRepository.streamAllForExport(null, null, MIN_TIME, MAX_TIME))) {
+      votes.forEach(
+          vote -> {
+            for (Granularity granularity : Granularity.values()) {
+              eventBuckets.merge(
+                  Arrays.asList(
+                      vote.getRsEventId(), granularity, granularity.bucketStart(vote.getTime())),
+                  vote.getVoteNum(),
+                  Integer::sum);
+            }
+            userEventTotals.merge(
+                Arrays.asList(vote.getUserId(), vote.getRsEventId()),
+                vote.getVoteNum(),
+                Integer::sum);
+          });
+    }
+    eventVoteRollupRepository.saveAll(
+        eventBuckets.entrySet().stream()
+            .map(
+                entry ->
+                    EventVoteRollupDto.builder()
+                        .rsEventId((Integer) entry.getKey().get(0))
+                        .granularity((Granularity) entry.getKey().get(1))
+                        .bucketStart((LocalDateTime) entry.getKey().get(2))
+                        .voteNum(entry.getValue())
+                        .build())
+            .collect(Collectors.toList()));
+    userEventVoteRollupRepository.saveAll(
+        userEventTotals.entrySet().stream()
+            .map(
+                entry ->
+                    UserEventVoteRollupDto.builder()
+                        .userId(entry.getKey().get(0))
+                        .rsEventId(entry.getKey().get(1))
+                        .voteNum(entry.getValue())
+                        .build())
+            .collect(Collectors.toList()));
+  }
+
+  @Override
+  @Transactional
+  public void run(ApplicationArguments args) {
+    if (enabled && backfillOnStartup) {
+      backfill();
+    }
+  }
+}
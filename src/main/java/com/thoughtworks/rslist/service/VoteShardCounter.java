@@ -0,0 +1,104 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventVoteShardDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.RsEventVoteShardRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shard rows are created with the event, so a vote only ever updates one.
+ */
+@Component
+public class VoteShardCounter {
+  private final RsEventVoteShardRepository rsEventVoteShardRepository;
+  private final RsEventRepository rsEventRepository;
+  private final TransactionTemplate newTransaction;
+  private final int shardCount;
+
+  public VoteShardCounter(
+      RsEventVoteShardRepository rsEventVoteShardRepository,
+      RsEventRepository rsEventRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${rs.vote.shard-count:0}") int shardCount) {
+    this.rsEventVoteShardRepository = rsEventVoteShardRepository;
+    this.rsEventRepository = rsEventRepository;
+    this.newTransaction = new TransactionTemplate(transactionManager);
+    this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.shardCount = shardCount;
+  }
+
+  public boolean isEnabled() {
+    return shardCount > 0;
+  }
+
+  @Transactional
+  public void created(int rsEventId) {
+    if (!isEnabled()) {
+      return;
+    }
+    List<RsEventVoteShardDto> shards = new ArrayList<>(shardCount);
+    for (int shard = 0; shard < shardCount; shard++) {
+      shards.add(RsEventVoteShardDto.builder().rsEventId(rsEventId).shard(shard).build());
+    }
+    rsEventVoteShardRepository.saveAll(shards);
+  }
+
+  @Transactional
+  public int increase(int rsEventId, int num) {
+    int shard = ThreadLocalRandom.current().nextInt(shardCount);
+    int rows = rsEventVoteShardRepository.increaseVoteNum(rsEventId, shard, num);
+    if (rows == 0) {
+      try {
+        newTransaction.execute(
+            status ->
+                rsEventVoteShardRepository.save(
+                    RsEventVoteShardDto.builder().rsEventId(rsEventId).shard(shard).build()));
+        rows++;
+      } catch (DataIntegrityViolationException e) {
+        // created by a concurrent vote
+      }
+      rows += rsEventVoteShardRepository.increaseVoteNum(rsEventId, shard, num);
+    }
+    return rows;
+  }
+
+  public Map<Integer, Integer> unfoldedVoteNum(Collection<Integer> rsEventIds) {
+    if (!isEnabled() || rsEventIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Integer, Integer> voteNums = new HashMap<>();
+    for (Object[] row : rsEventVoteShardRepository.sumVoteNumByRsEventIdIn(rsEventIds)) {
+      voteNums.put((Integer) row[0], ((Number) row[1]).intValue());
+    }
+    return voteNums;
+  }
+
+  @Scheduled(fixedDelayString = "${rs.vote.shard-fold-interval:1000}")
+  @Transactional
+  public void fold() {
+    if (!isEnabled()) {
+      return;
+    }
+    for (RsEventVoteShardDto shard : rsEventVoteShardRepository.findAllByVoteNumNot(0)) {
+      rsEventRepository.increaseVoteNum(
+          shard.getRsEventId(), shard.getVoteNum(), LocalDateTime.now());
+      rsEventVoteShardRepository.decreaseVoteNum(shard.getId(), shard.getVoteNum());
+    }
+  }
+}
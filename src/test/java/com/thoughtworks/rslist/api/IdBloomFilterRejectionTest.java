@@ -0,0 +1,68 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"rs.bloom.enabled=true", "spring.datasource.url=jdbc:h2:mem:bloom"})
+@AutoConfigureMockMvc
+@Import(StatementCounter.class)
+class IdBloomFilterRejectionTest {
+  @Autowired MockMvc mockMvc;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+
+  @Test
+  void should_reject_unknown_ids_before_touching_the_database() throws Exception {
+    mockMvc
+        .perform(
+            post("/user")
+                .content("{\"userName\":\"idolice\",\"age\":19,\"gender\":\"female\",\"email\":\"a@b.com\",\"phone\":\"18888888888\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    int userId = userRepository.findAll().get(0).getId();
+    mockMvc
+        .perform(
+            post("/rs/event")
+                .content("{\"eventName\":\"第一条事件\",\"keyword\":\"无分类\",\"userId\":" + userId + "}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    int rsEventId = rsEventRepository.findAll().get(0).getId();
+
+    StatementCounter.reset();
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventId + 1000)
+                .content("{\"userId\":" + userId + ",\"voteNum\":1}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("rs event not existed")));
+    mockMvc
+        .perform(
+            post("/rs/event")
+                .content("{\"eventName\":\"第二条事件\",\"keyword\":\"无分类\",\"userId\":" + (userId + 1000) + "}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("user not existed")));
+    assertEquals(0, StatementCounter.count());
+
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventId)
+                .content("{\"userId\":" + userId + ",\"voteNum\":1}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+  }
+}
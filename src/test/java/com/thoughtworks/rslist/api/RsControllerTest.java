@@ -10,21 +10,25 @@ import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -32,14 +36,16 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "rs.rollup.enabled=true")
 @AutoConfigureMockMvc
+@Import(StatementCounter.class)
 class RsControllerTest {
   @Autowired private MockMvc mockMvc;
   @Autowired UserRepository userRepository;
   @Autowired RsEventRepository rsEventRepository;
   @Autowired VoteRepository voteRepository;
   @Autowired TradeRepository tradeRepository;
+  @Autowired VoteRollupService voteRollupService;
   private UserDto userDto;
 
   @BeforeEach
@@ -192,6 +198,114 @@ class RsControllerTest {
     assertEquals(voteDtos.get(0).getNum(), 1);
   }
 
+  @Test
+  void should_get_rs_event_stats_from_rollups() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    for (String time : new String[] {"2020-09-01T10:15:00", "2020-09-01T10:45:00", "2020-09-01T11:05:00"}) {
+      mockMvc
+          .perform(
+              post("/rs/vote/{id}", rsEventDto.getId())
+                  .content(String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":2}", save.getId(), time))
+                  .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+    }
+    voteRollupService.flush();
+
+    mockMvc
+        .perform(get("/rs/{id}/stats", rsEventDto.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.granularity", is("hour")))
+        .andExpect(jsonPath("$.buckets", hasSize(2)))
+        .andExpect(jsonPath("$.buckets[0].bucketStart", is("2020-09-01T10:00:00")))
+        .andExpect(jsonPath("$.buckets[0].voteNum", is(4)))
+        .andExpect(jsonPath("$.buckets[1].voteNum", is(2)))
+        .andExpect(jsonPath("$.topVoters", hasSize(1)))
+        .andExpect(jsonPath("$.topVoters[0].userId", is(save.getId())))
+        .andExpect(jsonPath("$.topVoters[0].voteNum", is(6)));
+    mockMvc
+        .perform(get("/rs/{id}/stats", rsEventDto.getId()).param("granularity", "minute"))
+        .andExpect(jsonPath("$.buckets", hasSize(3)));
+    mockMvc
+        .perform(get("/rs/{id}/stats", rsEventDto.getId()).param("granularity", "day"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid granularity")));
+  }
+
+  @Test
+  void should_list_trending_keywords_from_committed_votes() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(RsEventDto.builder().keyword("热门关键词").eventName("第一条事件").user(save).build());
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventDto.getId())
+                .content(String.format("{\"userId\":%d,\"voteNum\":3}", save.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/rs/keywords/trending").param("top", "50"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.keyword == '热门关键词')].voteNum", contains(3)));
+    mockMvc
+        .perform(get("/rs/keywords/trending").param("top", "0"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid top")));
+  }
+
+  @Test
+  void should_decorate_list_with_votes_given_by_user() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventDto.getId())
+                .content(String.format("{\"userId\":%d,\"voteNum\":3}", save.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    voteRollupService.flush();
+
+    mockMvc
+        .perform(get("/rs/list").param("forUser", String.valueOf(save.getId())))
+        .andExpect(jsonPath("$[0].eventName", is("第一条事件")))
+        .andExpect(jsonPath("$[0].userVoteNum", is(3)))
+        .andExpect(jsonPath("$[1].userVoteNum", is(0)));
+    mockMvc
+        .perform(get("/rs/list"))
+        .andExpect(jsonPath("$[0]", not(hasKey("userVoteNum"))))
+        .andExpect(jsonPath("$[0]", not(hasKey("id"))));
+  }
+
+  @Test
+  void should_get_events_by_ids_in_requested_order() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto first =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    RsEventDto second = rsEventRepository.save(
+        RsEventDto.builder().keyword("无分类").eventName("第二条事件").voteNum(4).rank(2).user(save).build());
+
+    StatementCounter.reset();
+    mockMvc
+        .perform(get("/rs/batch").param("ids", second.getId() + "," + (second.getId() + 100) + "," + first.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)))
+        .andExpect(jsonPath("$[0].eventName", is("第二条事件")))
+        .andExpect(jsonPath("$[0].rank", is(2)))
+        .andExpect(jsonPath("$[0].voteNum", is(4)))
+        .andExpect(jsonPath("$[0].userId", is(save.getId())))
+        .andExpect(jsonPath("$[1]").value(nullValue()))
+        .andExpect(jsonPath("$[2].eventName", is("第一条事件")));
+    assertEquals(1, StatementCounter.count());
+
+    mockMvc
+        .perform(get("/rs/batch").param("ids", ""))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void should_add_buy_record() throws Exception {
     UserDto save = userRepository.save(userDto);
@@ -309,4 +423,97 @@ class RsControllerTest {
     assertEquals(rsEventDtos.size(), 1);
     assertEquals(rsEventDtos.get(0).getEventName(), "第二条事件");
   }
+
+  @Test
+  void should_keep_rs_list_within_statement_budget() throws Exception {
+    UserDto first = userRepository.save(userDto);
+    UserDto second =
+        userRepository.save(UserDto.builder().voteNum(10).phone("18888888888").age(20).userName("second").build());
+    for (int i = 0; i < 5; i++) {
+      rsEventRepository.save(
+          RsEventDto.builder().keyword("无分类").eventName("事件" + i).user(i % 2 == 0 ? first : second).build());
+    }
+
+    StatementCounter.reset();
+    mockMvc.perform(get("/rs/list")).andExpect(jsonPath("$", hasSize(5)));
+    assertEquals(1, StatementCounter.count());
+
+    StatementCounter.reset();
+    mockMvc.perform(get("/rs/1")).andExpect(status().isOk());
+    assertEquals(1, StatementCounter.count());
+  }
+
+  @Test
+  void should_keep_rs_writes_within_statement_budget() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+
+    StatementCounter.reset();
+    mockMvc
+        .perform(
+            post("/rs/event")
+                .content("{\"eventName\":\"猪肉涨价了\",\"keyword\":\"经济\",\"userId\": " + save.getId() + "}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    assertEquals(3, StatementCounter.count());
+
+    StatementCounter.reset();
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventDto.getId())
+                .content(String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}", save.getId(), LocalDateTime.now()))
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    assertEquals(5, StatementCounter.count());
+
+    StatementCounter.reset();
+    mockMvc
+        .perform(
+            post("/rs/buy/{id}", rsEventDto.getId())
+                .content("{\"amount\":1,\"rank\":1}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    assertEquals(5, StatementCounter.count());
+
+    StatementCounter.reset();
+    mockMvc.perform(get("/rs/{id}/stats", rsEventDto.getId())).andExpect(status().isOk());
+    assertEquals(2, StatementCounter.count());
+  }
+
+  @Test
+  void should_keep_events_and_ranks_separate_per_board() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto defaultEvent =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("默认事件").user(save).build());
+    mockMvc
+        .perform(
+            post("/board/sports/rs/event")
+                .content("{\"eventName\":\"球赛\",\"keyword\":\"体育\",\"userId\": " + save.getId() + "}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    RsEventDto sportsEvent =
+        rsEventRepository.findAll().stream().filter(event -> "sports".equals(event.getBoard())).findFirst().get();
+
+    mockMvc.perform(get("/rs/list")).andExpect(jsonPath("$", hasSize(1))).andExpect(jsonPath("$[0].eventName", is("默认事件")));
+    mockMvc.perform(get("/board/sports/rs/list")).andExpect(jsonPath("$", hasSize(1))).andExpect(jsonPath("$[0].eventName", is("球赛")));
+    mockMvc.perform(get("/board/sports/rs/1")).andExpect(jsonPath("$.keyword", is("体育")));
+
+    String trade = "{\"amount\":1,\"rank\":1}";
+    mockMvc
+        .perform(post("/rs/buy/{id}", defaultEvent.getId()).content(trade).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(post("/board/sports/rs/buy/{id}", sportsEvent.getId()).content(trade).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(post("/board/sports/rs/buy/{id}", defaultEvent.getId()).content(trade).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("rs event not existed")));
+    assertEquals(2, rsEventRepository.findAll().size());
+    mockMvc
+        .perform(get("/board/{board}/rs/list", "Sports!"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid board")));
+  }
 }
@@ -0,0 +1,68 @@
+package com.thoughtworks.rslist.api;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Wraps the DataSource so every JDBC statement executed on the current thread is counted. Endpoint
+ * tests reset the counter before a request and assert an exact budget afterwards, so an extra
+ * query (an N+1 load, a cascade) fails the build.
+ */
+@TestConfiguration
+public class StatementCounter {
+  private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+  public static void reset() {
+    COUNT.get()[0] = 0;
+  }
+
+  public static int count() {
+    return COUNT.get()[0];
+  }
+
+  @Bean
+  public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource ? wrap(bean, DataSource.class) : bean;
+      }
+    };
+  }
+
+  private static Object wrap(Object target, Class<?> type) {
+    return Proxy.newProxyInstance(
+        type.getClassLoader(),
+        new Class<?>[] {type},
+        (proxy, method, args) -> {
+          if (method.getName().equals("equals")) {
+            return proxy == args[0];
+          }
+          if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(proxy);
+          }
+          if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) {
+            COUNT.get()[0]++;
+          }
+          Object result;
+          try {
+            result = method.invoke(target, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+          Class<?> returnType = method.getReturnType();
+          if (result != null
+              && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType))) {
+            return wrap(result, returnType);
+          }
+          return result;
+        });
+  }
+}
@@ -1,37 +1,57 @@
 package com.thoughtworks.rslist.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@Import(StatementCounter.class)
 class UserControllerTest {
   @Autowired MockMvc mockMvc;
   ObjectMapper objectMapper;
   @Autowired UserRepository userRepository;
   @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired VoteRollupService voteRollupService;
 
   @BeforeEach
   void setUp() {
     objectMapper = new ObjectMapper();
+    voteRepository.deleteAll();
     rsEventRepository.deleteAll();
     userRepository.deleteAll();
   }
@@ -124,4 +144,112 @@ class UserControllerTest {
     assertEquals(userRepository.findAll().size(), 0);
     assertEquals(rsEventRepository.findAll().size(), 0);
   }
+
+  @Test
+  public void shouldGetUserStatsAfterBackfill() throws Exception {
+    UserDto save =
+        userRepository.save(
+            UserDto.builder().voteNum(10).phone("18888888888").age(19).userName("idolice").build());
+    RsEventDto first =
+        rsEventRepository.save(RsEventDto.builder().keyword("keyword").eventName("first").user(save).build());
+    RsEventDto second =
+        rsEventRepository.save(RsEventDto.builder().keyword("keyword").eventName("second").user(save).build());
+    LocalDateTime time = LocalDateTime.of(2020, 9, 1, 10, 0);
+    voteRepository.save(VoteDto.builder().user(save).rsEvent(first).num(3).localDateTime(time).build());
+    voteRepository.save(VoteDto.builder().user(save).rsEvent(first).num(1).localDateTime(time).build());
+    voteRepository.save(VoteDto.builder().user(save).rsEvent(second).num(2).localDateTime(time).build());
+
+    voteRollupService.backfill();
+
+    mockMvc
+        .perform(get("/user/{id}/stats", save.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.voteNum", is(6)))
+        .andExpect(jsonPath("$.rsEvents", hasSize(2)))
+        .andExpect(jsonPath("$.rsEvents[0].rsEventId", is(first.getId())))
+        .andExpect(jsonPath("$.rsEvents[0].voteNum", is(4)))
+        .andExpect(jsonPath("$.rsEvents[1].voteNum", is(2)));
+  }
+
+  @Test
+  public void shouldKeepUserEndpointsWithinStatementBudget() throws Exception {
+    userRepository.save(UserDto.builder().userName("xiaoli").age(20).phone("18888888889").build());
+    StatementCounter.reset();
+    mockMvc
+        .perform(
+            post("/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User("idolice", "female", 19, "a@b.com", "18888888888"))))
+        .andExpect(status().isOk());
+    assertEquals(1, StatementCounter.count());
+
+    UserDto save = userRepository.findAll().stream()
+        .filter(user -> "idolice".equals(user.getUserName()))
+        .findFirst()
+        .get();
+    rsEventRepository.save(RsEventDto.builder().keyword("keyword").eventName("first").user(save).build());
+    rsEventRepository.save(RsEventDto.builder().keyword("keyword").eventName("second").user(save).build());
+
+    StatementCounter.reset();
+    mockMvc.perform(get("/user/{id}/stats", save.getId())).andExpect(status().isOk());
+    assertEquals(1, StatementCounter.count());
+
+    StatementCounter.reset();
+    mockMvc.perform(delete("/user/{id}", save.getId())).andExpect(status().isOk());
+    assertEquals(7, StatementCounter.count());
+  }
+
+  @Test
+  void should_import_users_from_csv_and_report_rejected_rows() throws Exception {
+    String csv = "userName,gender,age,email,phone\n"
+        + "alice,female,19,a@b.com,18888888888\n"
+        + "bob,male,12,b@b.com,1234\n"
+        + "\n"
+        + "carol,female,twenty,c@b.com,18888888889\n"
+        + "dave,male,30,,18888888890\n";
+    MvcResult result = mockMvc
+        .perform(post("/users/import").contentType("text/csv").content(csv))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String[] lines = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString().split("\n");
+
+    assertEquals(3, lines.length);
+    assertEquals(2, JsonPath.<Integer>read(lines[0], "$.row"));
+    assertEquals(Arrays.asList("age: must be greater than or equal to 18", "phone: must match \"1\\d{10}\""),
+        JsonPath.read(lines[0], "$.errors"));
+    assertEquals(4, JsonPath.<Integer>read(lines[1], "$.row"));
+    assertEquals(Collections.singletonList("age: must be a number"), JsonPath.read(lines[1], "$.errors"));
+    assertEquals(2, JsonPath.<Integer>read(lines[2], "$.imported"));
+    assertEquals(2, JsonPath.<Integer>read(lines[2], "$.rejected"));
+    List<UserDto> users = userRepository.findAll();
+    assertEquals(2, users.size());
+    assertEquals(10, users.get(0).getVoteNum());
+  }
+
+  @Test
+  void should_import_users_from_ndjson() throws Exception {
+    String ndjson = "{\"userName\":\"alice\",\"age\":19,\"phone\":\"18888888888\"}\n"
+        + "{\"userName\":\"alice\",\n";
+    MvcResult result = mockMvc
+        .perform(post("/users/import").contentType("application/x-ndjson").content(ndjson))
+        .andReturn();
+    String[] lines = mockMvc.perform(asyncDispatch(result))
+        .andReturn().getResponse().getContentAsString().split("\n");
+
+    assertEquals(2, lines.length);
+    assertEquals(Collections.singletonList("malformed json"), JsonPath.read(lines[0], "$.errors"));
+    assertEquals(1, JsonPath.<Integer>read(lines[1], "$.imported"));
+    assertEquals(1, userRepository.findAll().size());
+  }
+
+  @Test
+  void should_reject_import_with_unknown_csv_columns() throws Exception {
+    mockMvc
+        .perform(post("/users/import").contentType("text/csv").content("userName,password\n"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid csv header")));
+  }
 }
@@ -1,28 +1,39 @@
 package com.thoughtworks.rslist.api;
 
+import com.jayway.jsonpath.JsonPath;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteArchiveRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteArchiver;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@Import(StatementCounter.class)
 class VoteControllerTest {
   @Autowired MockMvc mockMvc;
     @Autowired
@@ -31,6 +42,10 @@ class VoteControllerTest {
     RsEventRepository rsEventRepository;
     @Autowired
     VoteRepository voteRepository;
+    @Autowired
+    VoteArchiveRepository voteArchiveRepository;
+    @Autowired
+    VoteArchiver voteArchiver;
     UserDto userDto;
     RsEventDto rsEventDto;
 
@@ -50,6 +65,7 @@ class VoteControllerTest {
     @AfterEach
     void tearDown() {
         voteRepository.deleteAll();
+        voteArchiveRepository.deleteAll();
         rsEventRepository.deleteAll();
         userRepository.deleteAll();
       }
@@ -107,4 +123,100 @@ class VoteControllerTest {
 
 
     }
+
+    @Test
+    public void shouldGetVoteRecordFromArchiveAfterHotVotes() throws Exception {
+      for (int num = 1; num <= 7; num++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto)
+                .localDateTime(LocalDateTime.now().minusDays(40)).num(num).build());
+      }
+
+      assertEquals(7, voteArchiver.archive(LocalDateTime.now().minusDays(30)));
+      assertEquals(1, voteRepository.count());
+
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageIndex", "1"))
+              .andExpect(jsonPath("$", hasSize(5)))
+              .andExpect(jsonPath("$[0].voteNum",is(5)))
+              .andExpect(jsonPath("$[1].voteNum",is(1)))
+              .andExpect(jsonPath("$[4].voteNum",is(4)));
+
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageIndex", "2"))
+              .andExpect(jsonPath("$", hasSize(3)))
+              .andExpect(jsonPath("$[0].voteNum",is(5)))
+              .andExpect(jsonPath("$[1].voteNum",is(6)))
+              .andExpect(jsonPath("$[2].voteNum",is(7)));
+    }
+
+    @Test
+    public void shouldArchiveVotesWithoutTime() {
+      voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).num(1).build());
+      long hot = voteRepository.count();
+
+      assertEquals(1, voteArchiver.archive(LocalDateTime.now().minusDays(30)));
+      assertEquals(hot - 1, voteRepository.count());
+    }
+
+    @Test
+    public void shouldExportVoteRecordAsNdjson() throws Exception {
+      VoteDto voteDto = VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+              .num(1).build();
+      voteRepository.save(voteDto);
+
+      MvcResult result = mockMvc.perform(get("/voteRecord/export").param("userId", String.valueOf(userDto.getId())))
+              .andExpect(request().asyncStarted())
+              .andReturn();
+      String[] lines = mockMvc.perform(asyncDispatch(result))
+              .andExpect(status().isOk())
+              .andExpect(content().contentType("application/x-ndjson"))
+              .andReturn().getResponse().getContentAsString().split("\n");
+
+      assertEquals(2, lines.length);
+      assertEquals(5, JsonPath.<Integer>read(lines[0], "$.voteNum"));
+      assertEquals(rsEventDto.getId(), JsonPath.<Integer>read(lines[1], "$.rsEventId"));
+      assertEquals(1, JsonPath.<Integer>read(lines[1], "$.voteNum"));
+    }
+
+    @Test
+    public void shouldExportVoteRecordAsCsvWithinTimeRange() throws Exception {
+      VoteDto voteDto = VoteDto.builder().user(userDto).rsEvent(rsEventDto)
+              .localDateTime(LocalDateTime.of(2020, 1, 1, 0, 0)).num(3).build();
+      voteRepository.save(voteDto);
+
+      MvcResult result = mockMvc.perform(get("/voteRecord/export").param("format", "csv")
+              .param("from", "2019-12-31T00:00:00").param("to", "2020-01-02T00:00:00"))
+              .andExpect(request().asyncStarted())
+              .andReturn();
+      mockMvc.perform(asyncDispatch(result))
+              .andExpect(status().isOk())
+              .andExpect(content().string("userId,rsEventId,voteNum,time\n"
+                      + userDto.getId() + "," + rsEventDto.getId() + ",3,2020-01-01T00:00\n"));
+    }
+
+    @Test
+    public void shouldRejectUnknownExportFormat() throws Exception {
+      mockMvc.perform(get("/voteRecord/export").param("format", "xml"))
+              .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldKeepVoteRecordWithinStatementBudget() throws Exception {
+      for (int num = 1; num <= 6; num++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+                .num(num).build());
+      }
+
+      StatementCounter.reset();
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageIndex", "1"))
+              .andExpect(jsonPath("$", hasSize(5)));
+      assertEquals(1, StatementCounter.count());
+
+      StatementCounter.reset();
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageIndex", "2"))
+              .andExpect(jsonPath("$", hasSize(2)));
+      assertEquals(2, StatementCounter.count());
+    }
 }
@@ -0,0 +1,86 @@
+package com.thoughtworks.rslist.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AimdLimiterTest {
+  @Test
+  void should_back_off_on_slow_requests_and_grow_on_fast_ones() {
+    AimdLimiter limiter = new AimdLimiter(2, 1, 4, 10, 0.5);
+
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(1, limiter.getLimit());
+    limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  void should_back_off_once_for_slow_requests_admitted_before_the_last_cut() {
+    AimdLimiter limiter = new AimdLimiter(8, 1, 8, 10, 0.5);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+
+    for (int i = 0; i < 4; i++) {
+      limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    assertEquals(4, limiter.getLimit());
+
+    assertTrue(limiter.tryAcquire());
+    limiter.release(0);
+    assertTrue(limiter.tryAcquire());
+    limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  void should_hold_latency_near_target_under_overloaded_repository() {
+    long targetLatencyMillis = 20;
+    AtomicLong now = new AtomicLong();
+    AimdLimiter limiter = new AimdLimiter(50, 1, 200, targetLatencyMillis, 0.5, now::get);
+    // in-flight requests of 50 clients as {finish time, latency}; the fake repository takes 4ms
+    // for every concurrent caller, itself included
+    PriorityQueue<long[]> inFlight = new PriorityQueue<>(Comparator.comparingLong((long[] request) -> request[0]));
+    List<Long> latencies = new ArrayList<>();
+    int rejected = 0;
+    long tick = TimeUnit.MILLISECONDS.toNanos(1);
+    for (long millis = 0; millis < 2000; millis++) {
+      while (!inFlight.isEmpty() && inFlight.peek()[0] <= now.get()) {
+        long[] request = inFlight.poll();
+        limiter.release(request[1]);
+        if (millis > 1000) {
+          latencies.add(request[1]);
+        }
+      }
+      while (inFlight.size() < 50) {
+        if (!limiter.tryAcquire()) {
+          rejected += 50 - inFlight.size();
+          break;
+        }
+        long latency = TimeUnit.MILLISECONDS.toNanos(4L * (inFlight.size() + 1));
+        inFlight.add(new long[] {now.get() + latency, latency});
+      }
+      now.addAndGet(tick);
+    }
+
+    Collections.sort(latencies);
+    long p90Millis = TimeUnit.NANOSECONDS.toMillis(latencies.get(latencies.size() * 9 / 10));
+    assertTrue(p90Millis < targetLatencyMillis * 3, "p90 latency " + p90Millis + "ms");
+    assertTrue(limiter.getLimit() < 50);
+    assertTrue(rejected > 0);
+  }
+}
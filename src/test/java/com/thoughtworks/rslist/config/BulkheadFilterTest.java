@@ -0,0 +1,78 @@
+package com.thoughtworks.rslist.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadFilterTest {
+  SimpleMeterRegistry meterRegistry;
+  BulkheadFilter bulkheadFilter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    bulkheadFilter = new BulkheadFilter(meterRegistry, 200, 1, 0, 0, 1, 0, 0);
+  }
+
+  private MockHttpServletResponse perform(String method, String uri, FilterChain filterChain) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    bulkheadFilter.doFilter(new MockHttpServletRequest(method, uri), response, filterChain);
+    return response;
+  }
+
+  @Test
+  void should_hold_permit_until_async_request_completes() throws Exception {
+    MockHttpServletRequest export = new MockHttpServletRequest("GET", "/voteRecord/export");
+    export.setAsyncSupported(true);
+    bulkheadFilter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+    assertEquals(503, perform("GET", "/rs/list", (request, response) -> {}).getStatus());
+    export.getAsyncContext().complete();
+    assertEquals(200, perform("GET", "/rs/list", (request, response) -> {}).getStatus());
+  }
+
+  @Test
+  void should_refuse_limits_that_can_hold_every_tomcat_thread() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new BulkheadFilter(meterRegistry, 200, 100, 100, 0, 50, 50, 0));
+  }
+
+  @Test
+  void should_reject_writes_over_limit_without_affecting_reads() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<MockHttpServletResponse> blockedWrite =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return perform("POST", "/rs/vote/1", (request, response) -> {
+                  entered.countDown();
+                  try {
+                    release.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                });
+              } catch (Exception e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    entered.await();
+
+    assertEquals(503, perform("POST", "/rs/buy/1", (request, response) -> {}).getStatus());
+    assertEquals(200, perform("GET", "/rs/list", (request, response) -> {}).getStatus());
+    release.countDown();
+    assertEquals(200, blockedWrite.get().getStatus());
+    assertEquals(200, perform("POST", "/rs/buy/1", (request, response) -> {}).getStatus());
+    assertEquals(1, meterRegistry.counter("rs.bulkhead.rejected", "bulkhead", "write").count());
+  }
+}
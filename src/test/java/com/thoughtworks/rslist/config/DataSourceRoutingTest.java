@@ -0,0 +1,73 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@SpringBootTest(
+    properties = {
+      "rs.datasource.routing.enabled=true",
+      "rs.datasource.primary.jdbc-url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+      "rs.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+      "spring.jpa.hibernate.ddl-auto=create-drop"
+    })
+@AutoConfigureMockMvc
+class DataSourceRoutingTest {
+  @Autowired MockMvc mockMvc;
+  @Autowired UserRepository userRepository;
+  @Autowired ReadWriteDataSources readWriteDataSources;
+  JdbcTemplate primary;
+  JdbcTemplate replica;
+
+  @BeforeEach
+  void setUp() {
+    primary = new JdbcTemplate(readWriteDataSources.getPrimary());
+    replica = new JdbcTemplate(readWriteDataSources.getReplica());
+    replica.execute(
+        "create table if not exists user (id int primary key, name varchar(255), gender varchar(255),"
+            + " age int, email varchar(255), phone varchar(255), vote_num int)");
+    replica.execute(
+        "create table if not exists rs_event (id int primary key, board varchar(255), event_name varchar(255),"
+            + " keyword varchar(255), vote_num int, user_id int, rank int, updated_at timestamp)");
+    replica.update("insert into user (id, name, age, phone, vote_num) values (100, 'replica', 20, '18888888888', 10)");
+    replica.update(
+        "insert into rs_event (id, board, event_name, keyword, vote_num, user_id, rank) values (100, 'default', '从库事件', '无分类', 0, 100, 0)");
+  }
+
+  @AfterEach
+  void tearDown() {
+    replica.execute("drop table rs_event");
+    replica.execute("drop table user");
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void should_read_rs_event_list_from_replica() throws Exception {
+    mockMvc
+        .perform(get("/rs/list"))
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].eventName", is("从库事件")));
+  }
+
+  @Test
+  void should_write_to_primary() {
+    userRepository.save(
+        UserDto.builder().userName("primary").age(20).phone("18888888888").voteNum(10).build());
+
+    assertEquals(1, primary.queryForObject("select count(*) from user", Integer.class));
+    assertEquals(1, replica.queryForObject("select count(*) from user", Integer.class));
+  }
+}
@@ -0,0 +1,57 @@
+package com.thoughtworks.rslist.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"rs.profiler.enabled=true", "rs.profiler.sample-rate=1"})
+@AutoConfigureMockMvc
+class ServerTimingTest {
+  @Autowired MockMvc mockMvc;
+
+  @Test
+  void should_report_server_timing_for_sampled_request() throws Exception {
+    mockMvc
+        .perform(get("/rs/list"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$").isArray())
+        .andExpect(
+            header()
+                .string(
+                    "Server-Timing",
+                    allOf(
+                        containsString("db;desc=\"1 statements\""),
+                        containsString("service;dur="),
+                        containsString("serialize;dur="),
+                        containsString("total;dur="))));
+  }
+
+  @Test
+  void should_stream_async_body_without_buffering() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(get("/voteRecord/export").param("format", "csv"))
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string("Server-Timing", containsString("total;dur=")))
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string(startsWith("userId,rsEventId,voteNum,time\n")));
+  }
+}
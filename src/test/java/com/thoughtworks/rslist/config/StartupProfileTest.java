@@ -0,0 +1,37 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.RsListApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupProfileTest {
+  ConfigurableApplicationContext context;
+
+  @AfterEach
+  void tearDown() {
+    context.close();
+  }
+
+  @Test
+  void should_serve_rs_list_with_lazy_beans_and_eager_scheduled_beans() {
+    context =
+        new SpringApplicationBuilder(RsListApplication.class)
+            .run(
+                "--spring.profiles.active=startup",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--rs.startup.benchmark.enabled=true");
+
+    StartupBenchmark startupBenchmark = context.getBean(StartupBenchmark.class);
+    assertTrue(startupBenchmark.getReadyMillis() > 0);
+    assertTrue(startupBenchmark.getFirstListMillis() >= startupBenchmark.getReadyMillis());
+    assertTrue(context.getBeanFactory().containsSingleton("voteShardCounter"));
+    assertTrue(context.getBeanFactory().containsSingleton("rsController"));
+    assertFalse(context.getBeanFactory().containsSingleton("voteController"));
+  }
+}
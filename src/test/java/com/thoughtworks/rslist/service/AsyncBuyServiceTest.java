@@ -0,0 +1,90 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.BuyStatus;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class AsyncBuyServiceTest {
+  @Mock RsService rsService;
+  @Mock RsAuction rsAuction;
+  AsyncBuyService asyncBuyService;
+  Trade trade;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    asyncBuyService = new AsyncBuyService(rsService, rsAuction, true, 1, 1, 600000);
+    trade = Trade.builder().amount(10).rank(1).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    asyncBuyService.destroy();
+  }
+
+  private BuyStatus awaitFinished(String bidId) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      BuyStatus status = asyncBuyService.getStatus(bidId);
+      if (status.getState() != BuyStatus.State.PENDING) {
+        return status;
+      }
+      Thread.sleep(20);
+    }
+    throw new AssertionError("bid " + bidId + " is still pending");
+  }
+
+  @Test
+  void should_report_succeeded_bid() throws Exception {
+    BuyStatus pending = asyncBuyService.submit(trade, 1);
+
+    assertEquals(BuyStatus.State.PENDING, pending.getState());
+    assertEquals(BuyStatus.State.SUCCEEDED, awaitFinished(pending.getBidId()).getState());
+  }
+
+  @Test
+  void should_report_failed_bid_with_error() throws Exception {
+    doThrow(new RequestNotValidException("Payment not enough")).when(rsService).buy(anyString(), any(), anyInt());
+
+    BuyStatus status = awaitFinished(asyncBuyService.submit(trade, 1).getBidId());
+
+    assertEquals(BuyStatus.State.FAILED, status.getState());
+    assertEquals("Payment not enough", status.getError());
+  }
+
+  @Test
+  void should_reject_bid_when_queue_is_full() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(rsService).buy(anyString(), any(), anyInt());
+    asyncBuyService.submit(trade, 1);
+    asyncBuyService.submit(trade, 2);
+
+    assertThrows(RejectedExecutionException.class, () -> asyncBuyService.submit(trade, 3));
+    release.countDown();
+  }
+
+  @Test
+  void should_reject_invalid_trade() {
+    assertThrows(
+        RequestNotValidException.class,
+        () -> asyncBuyService.submit(Trade.builder().amount(10).rank(0).build(), 1));
+  }
+}
@@ -0,0 +1,97 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.api.UserController;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeOutboxTest {
+  ConfigurableApplicationContext first;
+  ConfigurableApplicationContext second;
+
+  private ConfigurableApplicationContext start(String instanceId) {
+    return new SpringApplicationBuilder(RsListApplication.class)
+        .web(WebApplicationType.NONE)
+        .run(
+            "--spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jmx.enabled=false",
+            "--rs.outbox.enabled=true",
+            "--rs.outbox.instance-id=" + instanceId,
+            "--rs.outbox.poll-interval=3600000",
+            "--rs.board.enabled=true",
+            "--rs.board.snapshot-file=build/" + instanceId + ".snapshot",
+            "--rs.board.refresh-interval=3600000",
+            "--rs.bloom.enabled=true");
+  }
+
+  @BeforeEach
+  void setUp() {
+    first = start("first");
+    second = start("second");
+  }
+
+  @AfterEach
+  void tearDown() {
+    first.close();
+    second.close();
+  }
+
+  @Test
+  void should_refresh_board_of_other_instance_after_polling_change_feed() {
+    UserDto userDto =
+        first.getBean(UserRepository.class)
+            .save(UserDto.builder().userName("idolice").age(19).phone("18888888888").voteNum(10).build());
+    RsEventDto rsEventDto =
+        first.getBean(RsEventRepository.class)
+            .save(RsEventDto.builder().eventName("event name").keyword("keyword").user(userDto).build());
+    first.getBean(RsBoard.class).refresh();
+    second.getBean(RsBoard.class).refresh();
+
+    first.getBean(RsService.class)
+        .vote(Vote.builder().userId(userDto.getId()).voteNum(3).time(LocalDateTime.now()).build(), rsEventDto.getId());
+
+    assertEquals(0, first.getBean(RsService.class).getRsEventList(1).get(0).getVoteNum());
+    assertEquals(0, second.getBean(RsService.class).getRsEventList(1).get(0).getVoteNum());
+    assertTrue(second.getBean(KeywordTrends.class).getTrending(1).isEmpty());
+    second.getBean(ChangeOutbox.class).poll();
+    first.getBean(RsBoard.class).scheduledRefresh();
+    assertEquals(3, first.getBean(RsService.class).getRsEventList(1).get(0).getVoteNum());
+    assertEquals(3, second.getBean(RsService.class).getRsEventList(1).get(0).getVoteNum());
+    assertEquals(3, second.getBean(KeywordTrends.class).getTrending(1).get(0).getVoteNum());
+  }
+
+  @Test
+  void should_add_ids_inserted_by_other_instance_to_bloom_filter_after_polling_change_feed() {
+    first.getBean(UserController.class)
+        .register(new User("xiaoli", "male", 20, "a@b.com", "18888888888"));
+    int userId =
+        first.getBean(UserRepository.class).findAll().stream()
+            .filter(user -> "xiaoli".equals(user.getUserName()))
+            .findFirst()
+            .get()
+            .getId();
+    IdBloomFilters idBloomFilters = second.getBean(IdBloomFilters.class);
+
+    assertThrows(RequestNotValidException.class, () -> idBloomFilters.requireUser(userId));
+    second.getBean(ChangeOutbox.class).poll();
+    idBloomFilters.requireUser(userId);
+  }
+}
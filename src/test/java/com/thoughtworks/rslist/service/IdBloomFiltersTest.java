@@ -0,0 +1,87 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class IdBloomFiltersTest {
+  @Mock UserRepository userRepository;
+  @Mock RsEventRepository rsEventRepository;
+  SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void should_reject_ids_that_were_never_inserted() {
+    when(userRepository.findAllIds()).thenReturn(Arrays.asList(1, 2, 3));
+    when(rsEventRepository.findAllIds()).thenReturn(Collections.singletonList(10));
+    IdBloomFilters idBloomFilters = filters();
+
+    idBloomFilters.requireUser(2);
+    idBloomFilters.requireRsEvent(10);
+    RequestNotValidException exception =
+        assertThrows(RequestNotValidException.class, () -> idBloomFilters.requireRsEvent(11));
+    assertEquals("rs event not existed", exception.getMessage());
+    idBloomFilters.rsEventAdded(11);
+    idBloomFilters.requireRsEvent(11);
+
+    long rejected =
+        IntStream.range(1000, 11000)
+            .filter(
+                id -> {
+                  try {
+                    idBloomFilters.requireUser(id);
+                    return false;
+                  } catch (RequestNotValidException e) {
+                    return true;
+                  }
+                })
+            .count();
+    assertTrue(rejected > 9800, "rejected " + rejected);
+    assertEquals(
+        rejected,
+        meterRegistry.get("rs.bloom.lookups").tags("filter", "user", "result", "absent").counter().count());
+  }
+
+  @Test
+  void should_forget_deleted_ids_one_rebuild_after_they_leave_the_snapshot() {
+    when(userRepository.findAllIds()).thenReturn(Arrays.asList(1, 2));
+    when(rsEventRepository.findAllIds()).thenReturn(Collections.emptyList());
+    IdBloomFilters idBloomFilters = filters();
+    idBloomFilters.userAdded(3);
+
+    when(userRepository.findAllIds()).thenReturn(Collections.singletonList(1));
+    idBloomFilters.rebuild();
+    idBloomFilters.requireUser(2);
+    idBloomFilters.requireUser(3);
+
+    idBloomFilters.rebuild();
+    idBloomFilters.requireUser(1);
+    assertThrows(RequestNotValidException.class, () -> idBloomFilters.requireUser(2));
+  }
+
+  private IdBloomFilters filters() {
+    IdBloomFilters idBloomFilters =
+        new IdBloomFilters(userRepository, rsEventRepository, meterRegistry, true, 1000, 0.01);
+    idBloomFilters.afterPropertiesSet();
+    return idBloomFilters;
+  }
+}
@@ -0,0 +1,49 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.KeywordTrend;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordTrendsTest {
+
+  @Test
+  void should_surface_heavy_hitters_among_many_keywords() {
+    KeywordTrends keywordTrends = new KeywordTrends(true, 4, 256, 60000, 6, 5);
+    for (int i = 0; i < 5000; i++) {
+      keywordTrends.record("noise-" + i, 1, 1000);
+      if (i % 10 == 0) {
+        keywordTrends.record("体育", 2, 1000);
+      }
+      if (i % 20 == 0) {
+        keywordTrends.record("娱乐", 2, 1000);
+      }
+    }
+
+    List<KeywordTrend> trending = keywordTrends.getTrending(2, 1000);
+
+    assertEquals("体育", trending.get(0).getKeyword());
+    assertEquals("娱乐", trending.get(1).getKeyword());
+    assertTrue(trending.get(0).getVoteNum() >= 1000);
+    assertTrue(trending.get(1).getVoteNum() >= 500);
+  }
+
+  @Test
+  void should_forget_votes_that_slid_out_of_the_window() {
+    KeywordTrends keywordTrends = new KeywordTrends(true, 4, 256, 60000, 6, 5);
+    keywordTrends.record("体育", 5, 0);
+    keywordTrends.record("娱乐", 3, 30000);
+
+    assertEquals(5, keywordTrends.getTrending(5, 59999).get(0).getVoteNum());
+
+    List<KeywordTrend> trending = keywordTrends.getTrending(5, 60000);
+    assertEquals(1, trending.size());
+    assertEquals("娱乐", trending.get(0).getKeyword());
+    assertEquals(3, trending.get(0).getVoteNum());
+
+    assertTrue(keywordTrends.getTrending(5, 90000).isEmpty());
+  }
+}
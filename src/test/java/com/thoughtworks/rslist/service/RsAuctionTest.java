@@ -0,0 +1,120 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsAuctionTest {
+  @Mock RsService rsService;
+  RsAuction rsAuction;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    rsAuction = new RsAuction(rsService, true, 200, 2, 1000);
+  }
+
+  @AfterEach
+  void tearDown() {
+    rsAuction.destroy();
+  }
+
+  private CompletableFuture<Void> bid(double amount, int rsEventId) {
+    Trade trade = Trade.builder().amount(amount).rank(1).build();
+    return CompletableFuture.runAsync(() -> rsAuction.bid(trade, rsEventId));
+  }
+
+  @Test
+  void should_clear_bids_of_same_window_with_highest_amount() {
+    when(rsService.clearRound(anyString(), anyList(), anyList()))
+        .thenReturn(
+            Arrays.asList(
+                null,
+                new RequestNotValidException("Payment not enough"),
+                new RequestNotValidException("Payment not enough")));
+    List<CompletableFuture<Void>> bids = new ArrayList<>();
+    bids.add(bid(10, 1));
+    bids.add(bid(30, 2));
+    bids.add(bid(20, 3));
+
+    bids.get(1).join();
+    RequestNotValidException loser =
+        (RequestNotValidException) assertThrows(CompletionException.class, () -> bids.get(0).join()).getCause();
+    assertEquals("Payment not enough", loser.getMessage());
+    assertThrows(CompletionException.class, () -> bids.get(2).join());
+    verify(rsService, times(1)).clearRound(anyString(), anyList(), anyList());
+    verify(rsService)
+        .clearRound(
+            "default",
+            Arrays.asList(
+                Trade.builder().amount(30).rank(1).build(),
+                Trade.builder().amount(20).rank(1).build(),
+                Trade.builder().amount(10).rank(1).build()),
+            Arrays.asList(2, 3, 1));
+  }
+
+  @Test
+  void should_fail_whole_round_when_clearing_fails() {
+    when(rsService.clearRound(anyString(), anyList(), anyList())).thenThrow(new IllegalStateException("db down"));
+    CompletableFuture<Void> high = bid(30, 1);
+    CompletableFuture<Void> low = bid(10, 2);
+
+    assertEquals("db down", assertThrows(CompletionException.class, high::join).getCause().getMessage());
+    assertEquals("db down", assertThrows(CompletionException.class, low::join).getCause().getMessage());
+    verify(rsService, times(1)).clearRound(anyString(), anyList(), anyList());
+  }
+
+  @Test
+  void should_rethrow_error_of_clearing_to_bidder() {
+    when(rsService.clearRound(anyString(), anyList(), anyList())).thenThrow(new AssertionError("broken"));
+
+    CompletionException failed = assertThrows(CompletionException.class, bid(30, 1)::join);
+
+    assertEquals(AssertionError.class, failed.getCause().getClass());
+  }
+
+  @Test
+  void should_give_up_on_bids_not_cleared_within_timeout() {
+    rsAuction.destroy();
+    rsAuction = new RsAuction(rsService, true, 500, 2, 100);
+
+    CompletionException timedOut = assertThrows(CompletionException.class, bid(30, 1)::join);
+
+    assertEquals(ServiceUnavailableException.class, timedOut.getCause().getClass());
+    assertEquals("auction round timed out", timedOut.getCause().getMessage());
+    verify(rsService, after(600).never()).clearRound(anyString(), anyList(), anyList());
+  }
+
+  @Test
+  void should_fail_open_bids_on_shutdown() throws Exception {
+    rsAuction.destroy();
+    rsAuction = new RsAuction(rsService, true, 60000, 2, 60000);
+    CompletableFuture<Void> open = bid(30, 1);
+    Thread.sleep(100);
+
+    rsAuction.destroy();
+
+    CompletionException shutdown = assertThrows(CompletionException.class, open::join);
+    assertEquals("auction is shutting down", shutdown.getCause().getMessage());
+  }
+}
@@ -0,0 +1,90 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsBoardTest {
+  @Mock RsEventRepository rsEventRepository;
+  @TempDir Path directory;
+  UserDto userDto;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    userDto = UserDto.builder().id(1).userName("xiaoli").build();
+  }
+
+  private RsBoard board() {
+    return new RsBoard(rsEventRepository, true, directory.resolve("board.snapshot").toString(), 0);
+  }
+
+  private RsEventDto rsEvent(int id, int voteNum, int rank) {
+    return RsEventDto.builder()
+        .id(id)
+        .eventName("event " + id)
+        .keyword("keyword")
+        .voteNum(voteNum)
+        .rank(rank)
+        .user(userDto)
+        .build();
+  }
+
+  private List<Integer> ids(List<RsEventDto> rsEvents) {
+    return rsEvents.stream().map(RsEventDto::getId).collect(Collectors.toList());
+  }
+
+  @Test
+  void should_order_board_by_rank_and_vote_num() {
+    when(rsEventRepository.findAll())
+        .thenReturn(Arrays.asList(rsEvent(1, 3, 0), rsEvent(2, 8, 0), rsEvent(3, 1, 1)));
+    when(rsEventRepository.findAllIds()).thenReturn(Arrays.asList(1, 2, 3));
+    RsBoard rsBoard = board();
+
+    rsBoard.afterPropertiesSet();
+
+    assertTrue(rsBoard.isReady());
+    assertEquals(Arrays.asList(2, 1), ids(rsBoard.getPage(1, 2)));
+    assertEquals(Collections.singletonList(3), ids(rsBoard.getPage(2, 2)));
+    assertEquals(3, rsBoard.getById(3).getId());
+    assertNull(rsBoard.getById(4));
+  }
+
+  @Test
+  void should_warm_start_from_snapshot_and_reconcile_changes() {
+    when(rsEventRepository.findAll()).thenReturn(Arrays.asList(rsEvent(1, 3, 0), rsEvent(2, 8, 0)));
+    when(rsEventRepository.findAllIds()).thenReturn(Arrays.asList(1, 2));
+    RsBoard rsBoard = board();
+    rsBoard.afterPropertiesSet();
+    rsBoard.destroy();
+
+    when(rsEventRepository.findAllByUpdatedAtAfter(any()))
+        .thenReturn(Collections.singletonList(rsEvent(3, 5, 0)));
+    when(rsEventRepository.findAllIds()).thenReturn(Arrays.asList(2, 3));
+    RsBoard restarted = board();
+    restarted.afterPropertiesSet();
+
+    verify(rsEventRepository, never()).findAllByBoardOrderByRankAsc(any(), any());
+    assertEquals(Arrays.asList(2, 3), ids(restarted.getPage(1, 5)));
+    assertEquals("event 2", restarted.getPage(1, 5).get(0).getEventName());
+  }
+}
@@ -0,0 +1,87 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsListCoalescerTest {
+  @Mock RsService rsService;
+  SimpleMeterRegistry meterRegistry;
+  List<RsEvent> rsEvents;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    rsEvents = Collections.singletonList(RsEvent.builder().eventName("event").keyword("key").build());
+  }
+
+  @Test
+  void should_share_in_flight_load_between_concurrent_callers() throws Exception {
+    RsListCoalescer rsListCoalescer = new RsListCoalescer(rsService, meterRegistry, true, 5000);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(rsService.getRsEventList(anyString(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await();
+              return rsEvents;
+            });
+
+    CompletableFuture<List<RsEvent>> first =
+        CompletableFuture.supplyAsync(() -> rsListCoalescer.getRsEventList("default", 1));
+    loading.await();
+    CompletableFuture<List<RsEvent>> second =
+        CompletableFuture.supplyAsync(() -> rsListCoalescer.getRsEventList("default", 1));
+    while (meterRegistry.counter("rs.list.coalesce.coalesced").count() < 1) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+
+    assertSame(first.get(), second.get());
+    verify(rsService, times(1)).getRsEventList("default", 1);
+    assertEquals(0.5, rsListCoalescer.getCoalescingRatio());
+  }
+
+  @Test
+  void should_load_again_when_wait_exceeds_limit() throws Exception {
+    RsListCoalescer rsListCoalescer = new RsListCoalescer(rsService, meterRegistry, true, 10);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(rsService.getRsEventList(anyString(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await();
+              return rsEvents;
+            })
+        .thenReturn(rsEvents);
+
+    CompletableFuture<List<RsEvent>> first =
+        CompletableFuture.supplyAsync(() -> rsListCoalescer.getRsEventList("default", 1));
+    loading.await();
+
+    assertEquals(rsEvents, rsListCoalescer.getRsEventList("default", 1));
+    assertEquals(1, meterRegistry.counter("rs.list.coalesce.timeouts").count());
+    release.countDown();
+    first.get();
+    verify(rsService, times(2)).getRsEventList("default", 1);
+  }
+}
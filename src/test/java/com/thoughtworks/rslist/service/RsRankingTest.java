@@ -0,0 +1,153 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsRankingDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.RsRankingRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"rs.ranking.enabled=true", "spring.datasource.url=jdbc:h2:mem:ranking"})
+class RsRankingTest {
+  @Autowired RsService rsService;
+  @Autowired RsRanking rsRanking;
+  @Autowired RsRankingRepository rsRankingRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired UserRepository userRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  UserDto user;
+
+  @BeforeEach
+  void setUp() {
+    rsRankingRepository.deleteAll();
+    tradeRepository.deleteAll();
+    voteRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    user = userRepository.save(
+        UserDto.builder().userName("idolice").age(19).gender("female").email("a@b.com").phone("18888888888").build());
+  }
+
+  @Test
+  void should_keep_positions_in_list_order_through_votes_and_buys() {
+    for (String name : Arrays.asList("first", "second", "third", "fourth")) {
+      rsService.addRsEvent(RsEvent.builder().eventName(name).keyword("无分类").userId(user.getId()).build());
+    }
+    rsService.addRsEvent("sports", RsEvent.builder().eventName("match").keyword("体育").userId(user.getId()).build());
+    assertEquals(Arrays.asList("first", "second", "third", "fourth"), listedNames());
+
+    rsService.vote(Vote.builder().userId(user.getId()).voteNum(3).time(LocalDateTime.now()).build(), idOf("third"));
+    rsService.vote(Vote.builder().userId(user.getId()).voteNum(5).time(LocalDateTime.now()).build(), idOf("fourth"));
+    assertEquals(Arrays.asList("fourth", "third", "first", "second"), listedNames());
+
+    rsService.buy(Trade.builder().amount(1).rank(1).build(), idOf("first"));
+    assertEquals(Arrays.asList("fourth", "third", "second", "first"), listedNames());
+
+    rsService.buy(Trade.builder().amount(2).rank(1).build(), idOf("third"));
+    assertEquals(Arrays.asList("fourth", "second", "third"), listedNames());
+    assertEquals(Arrays.asList(1, 2, 3), positions(RsEventDto.DEFAULT_BOARD));
+    assertEquals(Arrays.asList(1), positions("sports"));
+
+    List<RsRankingDto> incremental = rsRankingRepository.findAllByBoardOrderByPositionAsc(RsEventDto.DEFAULT_BOARD);
+    rsRanking.rebuild();
+    assertEquals(incremental, rsRankingRepository.findAllByBoardOrderByPositionAsc(RsEventDto.DEFAULT_BOARD));
+  }
+
+  @Test
+  void should_close_gaps_when_removing_events_of_a_user() {
+    UserDto other = userRepository.save(
+        UserDto.builder().userName("other").age(20).gender("male").email("c@d.com").phone("18888888889").build());
+    rsService.addRsEvent(RsEvent.builder().eventName("first").keyword("无分类").userId(user.getId()).build());
+    rsService.addRsEvent(RsEvent.builder().eventName("second").keyword("无分类").userId(other.getId()).build());
+    rsService.addRsEvent(RsEvent.builder().eventName("third").keyword("无分类").userId(user.getId()).build());
+    rsService.addRsEvent(RsEvent.builder().eventName("fourth").keyword("无分类").userId(other.getId()).build());
+
+    rsRanking.userRemoved(user.getId());
+
+    assertEquals(Arrays.asList(1, 2), positions(RsEventDto.DEFAULT_BOARD));
+  }
+
+  @Test
+  void should_assign_distinct_positions_to_concurrent_adds() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      String name = "event" + i;
+      futures.add(executor.submit(() -> rsService.addRsEvent(
+          RsEvent.builder().eventName(name).keyword("无分类").userId(user.getId()).build())));
+    }
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertEquals(
+        IntStream.rangeClosed(1, 32).boxed().collect(Collectors.toList()),
+        positions(RsEventDto.DEFAULT_BOARD));
+  }
+
+  @Test
+  void should_fall_back_to_sorted_query_until_existing_events_are_built() {
+    rsEventRepository.save(
+        RsEventDto.builder().eventName("old").keyword("无分类").voteNum(5).board("legacy").user(user).build());
+    rsEventRepository.save(
+        RsEventDto.builder().eventName("older").keyword("无分类").voteNum(3).board("legacy").user(user).build());
+    rsService.addRsEvent("legacy", RsEvent.builder().eventName("new").keyword("无分类").userId(user.getId()).build());
+
+    assertFalse(rsRanking.isBuilt("legacy"));
+    assertEquals(Arrays.asList("old", "older", "new"), listedNames("legacy"));
+
+    rsRanking.buildIfMissing();
+
+    assertTrue(rsRanking.isBuilt("legacy"));
+    assertEquals(Arrays.asList(1, 2, 3), positions("legacy"));
+    assertEquals(Arrays.asList("old", "older", "new"), listedNames("legacy"));
+  }
+
+  private List<String> listedNames(String board) {
+    return rsService.getRsEventList(board, 1).stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+
+  private List<String> listedNames() {
+    return rsService.getRsEventList(1).stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+
+  private List<Integer> positions(String board) {
+    return rsRankingRepository.findAllByBoardOrderByPositionAsc(board).stream()
+        .map(RsRankingDto::getPosition)
+        .collect(Collectors.toList());
+  }
+
+  private int idOf(String eventName) {
+    return rsEventRepository.findAll().stream()
+        .filter(rsEvent -> eventName.equals(rsEvent.getEventName()))
+        .findFirst()
+        .get()
+        .getId();
+  }
+}
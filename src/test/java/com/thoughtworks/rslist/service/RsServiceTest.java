@@ -1,7 +1,9 @@
 package com.thoughtworks.rslist.service;
 
+import com.thoughtworks.rslist.domain.RsVotedEvent;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
@@ -12,15 +14,31 @@ import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
 import org.graalvm.compiler.nodes.calc.IntegerDivRemNode;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -32,13 +50,20 @@ class RsServiceTest {
   @Mock UserRepository userRepository;
   @Mock VoteRepository voteRepository;
   @Mock TradeRepository tradeRepository;
+  @Mock VoteShardCounter voteShardCounter;
+  @Mock RsBoard rsBoard;
+  @Mock RsRanking rsRanking;
+  @Mock IdBloomFilters idBloomFilters;
+  @Mock ChangeOutbox changeOutbox;
+  @Mock UserEventVoteIndex userEventVoteIndex;
+  @Mock ApplicationEventPublisher applicationEventPublisher;
   LocalDateTime localDateTime;
   Vote vote;
 
   @BeforeEach
   void setUp() {
     initMocks(this);
-    rsService = new RsService(tradeRepository, rsEventRepository, userRepository, voteRepository);
+    rsService = new RsService(tradeRepository, rsEventRepository, userRepository, voteRepository, voteShardCounter, rsBoard, rsRanking, idBloomFilters, changeOutbox, userEventVoteIndex, applicationEventPublisher);
     localDateTime = LocalDateTime.now();
     vote = Vote.builder().voteNum(2).rsEventId(1).time(localDateTime).userId(1).build();
   }
@@ -68,6 +93,7 @@ class RsServiceTest {
 
     when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
     when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+    when(userRepository.decreaseVoteNum(2, 2)).thenReturn(1);
     // when
     rsService.vote(vote, 1);
     // then
@@ -79,8 +105,51 @@ class RsServiceTest {
                 .user(userDto)
                 .rsEvent(rsEventDto)
                 .build());
-    verify(userRepository).save(userDto);
+    verify(userRepository).decreaseVoteNum(2, 2);
     verify(rsEventRepository).save(rsEventDto);
+    verify(changeOutbox).record(ChangeRecordDto.Type.VOTE, 1, 2, 2, "keyword");
+    verify(applicationEventPublisher)
+        .publishEvent(
+            RsVotedEvent.builder()
+                .userId(2)
+                .rsEventId(1)
+                .keyword("keyword")
+                .voteNum(2)
+                .time(localDateTime)
+                .build());
+  }
+
+  @Test
+  void should_increase_vote_shard_instead_of_rs_event_when_sharding_enabled() {
+    UserDto userDto =
+        UserDto.builder()
+            .voteNum(5)
+            .phone("18888888888")
+            .gender("female")
+            .email("a@b.com")
+            .age(19)
+            .userName("xiaoli")
+            .id(2)
+            .build();
+    RsEventDto rsEventDto =
+        RsEventDto.builder()
+            .eventName("event name")
+            .id(1)
+            .keyword("keyword")
+            .voteNum(2)
+            .user(userDto)
+            .build();
+    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
+    when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+    when(userRepository.decreaseVoteNum(2, 2)).thenReturn(1);
+    when(voteShardCounter.isEnabled()).thenReturn(true);
+
+    rsService.vote(vote, 1);
+
+    verify(voteShardCounter).increase(1, 2);
+    verify(userRepository).decreaseVoteNum(2, 2);
+    verify(rsEventRepository, never()).save(any());
+    assertEquals(2, rsEventDto.getVoteNum());
   }
 
   @Test
@@ -204,7 +273,7 @@ class RsServiceTest {
             .rank(1)
             .amount(10)
             .id(1).build();
-    when(tradeRepository.findFirstByRankOrderByAmountDesc(anyInt())).thenReturn(Optional.of(tradeDto));
+    when(tradeRepository.findFirstByBoardAndRankOrderByAmountDesc(anyString(), anyInt())).thenReturn(Optional.of(tradeDto));
 
     Trade trade = Trade.builder()
             .rank(1)
@@ -213,4 +282,98 @@ class RsServiceTest {
 
     assertThrows(RequestNotValidException.class, () -> rsService.buy(trade, 1));
   }
+
+  @Test
+  void should_clear_round_with_highest_bid_that_can_be_bought() {
+    UserDto userDto = UserDto.builder().voteNum(0).userName("xiaoli").id(2).build();
+    RsEventDto rsEventDto = RsEventDto.builder().eventName("event name").id(1).user(userDto).build();
+    when(rsEventRepository.findById(1)).thenReturn(Optional.of(rsEventDto));
+    when(rsEventRepository.findById(2)).thenReturn(Optional.empty());
+
+    List<RequestNotValidException> rejections =
+        rsService.clearRound(
+            RsEventDto.DEFAULT_BOARD,
+            Arrays.asList(
+                Trade.builder().amount(30).rank(1).build(),
+                Trade.builder().amount(20).rank(1).build(),
+                Trade.builder().amount(10).rank(1).build()),
+            Arrays.asList(2, 1, 3));
+
+    assertEquals("rs event not existed", rejections.get(0).getMessage());
+    assertNull(rejections.get(1));
+    assertEquals("Payment not enough", rejections.get(2).getMessage());
+    verify(tradeRepository, times(1)).save(any());
+    verify(rsEventRepository, never()).findById(3);
+  }
+
+  @Test
+  void should_reject_whole_round_when_highest_bid_is_not_enough() {
+    RsEventDto rsEventDto = RsEventDto.builder().eventName("event name").id(1).build();
+    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
+    when(tradeRepository.findFirstByBoardAndRankOrderByAmountDesc(anyString(), anyInt()))
+        .thenReturn(Optional.of(TradeDto.builder().rsEvent(rsEventDto).rank(1).amount(50).build()));
+
+    List<RequestNotValidException> rejections =
+        rsService.clearRound(
+            RsEventDto.DEFAULT_BOARD,
+            Arrays.asList(Trade.builder().amount(30).rank(1).build(), Trade.builder().amount(10).rank(1).build()),
+            Arrays.asList(1, 2));
+
+    assertEquals("Payment not enough", rejections.get(0).getMessage());
+    assertEquals("Payment not enough", rejections.get(1).getMessage());
+    verify(rsEventRepository, times(1)).findById(anyInt());
+    verify(tradeRepository, never()).save(any());
+  }
+
+  @Test
+  void should_record_jfr_event_with_outcome_for_rejected_buy() throws Exception {
+    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.empty());
+    Trade trade = Trade.builder().rank(3).amount(7).build();
+    Path file = Files.createTempFile("rs-service", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(BuyJfrEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+      assertThrows(RequestNotValidException.class, () -> rsService.buy(trade, 1));
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals("com.thoughtworks.rslist.Buy"))
+            .collect(Collectors.toList());
+    Files.delete(file);
+    assertEquals(1, events.size());
+    assertEquals(3, events.get(0).getInt("rank"));
+    assertEquals(7, events.get(0).getDouble("amount"));
+    assertEquals("rs event not existed", events.get(0).getString("outcome"));
+  }
+
+  @Test
+  void should_record_rows_touched_by_vote_in_jfr_event() throws Exception {
+    UserDto userDto = UserDto.builder().voteNum(5).userName("xiaoli").id(2).build();
+    RsEventDto rsEventDto = RsEventDto.builder().eventName("event name").id(1).voteNum(2).user(userDto).build();
+    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
+    when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+    when(userRepository.decreaseVoteNum(2, 2)).thenReturn(1);
+    when(voteShardCounter.isEnabled()).thenReturn(true);
+    when(voteShardCounter.increase(1, 2)).thenReturn(2);
+    Path file = Files.createTempFile("rs-service", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(VoteJfrEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+      rsService.vote(vote, 1);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals("com.thoughtworks.rslist.Vote"))
+            .collect(Collectors.toList());
+    Files.delete(file);
+    assertEquals(1, events.size());
+    assertEquals(4, events.get(0).getInt("rowsTouched"));
+    assertEquals("ok", events.get(0).getString("outcome"));
+  }
 }
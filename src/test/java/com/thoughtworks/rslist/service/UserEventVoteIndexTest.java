@@ -0,0 +1,90 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsVotedEvent;
+import com.thoughtworks.rslist.dto.ChangeRecordDto;
+import com.thoughtworks.rslist.repository.VoteArchiveRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class UserEventVoteIndexTest {
+  @Mock VoteRepository voteRepository;
+  @Mock VoteArchiveRepository voteArchiveRepository;
+  @Mock PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+  }
+
+  @Test
+  void should_load_totals_from_votes_and_archive_then_follow_new_votes() {
+    when(voteArchiveRepository.streamVoteNumByUserAndRsEvent())
+        .thenReturn(Stream.<Object[]>of(new Object[] {1, 2, 3L}));
+    when(voteRepository.streamVoteNumByUserAndRsEvent())
+        .thenReturn(Stream.of(new Object[] {1, 2, 4L}, new Object[] {2, 1, 5L}));
+    UserEventVoteIndex index =
+        new UserEventVoteIndex(voteRepository, voteArchiveRepository, transactionManager, true, 4);
+    index.afterPropertiesSet();
+
+    index.onVoted(RsVotedEvent.builder().userId(1).rsEventId(2).voteNum(1).build());
+
+    assertEquals(8, index.getVoteNum(1, 2));
+    assertEquals(5, index.getVoteNum(2, 1));
+    assertEquals(0, index.getVoteNum(2, 2));
+  }
+
+  @Test
+  void should_follow_other_instances_votes_and_drop_removed_users_and_events() {
+    when(voteArchiveRepository.streamVoteNumByUserAndRsEvent()).thenReturn(Stream.empty());
+    when(voteRepository.streamVoteNumByUserAndRsEvent())
+        .thenReturn(Stream.of(new Object[] {1, 1, 1L}, new Object[] {1, 2, 2L}, new Object[] {2, 1, 3L}));
+    UserEventVoteIndex index =
+        new UserEventVoteIndex(voteRepository, voteArchiveRepository, transactionManager, true, 4);
+    index.afterPropertiesSet();
+
+    index.onChange(
+        ChangeRecordDto.builder().type(ChangeRecordDto.Type.VOTE).userId(2).rsEventId(2).num(4).build());
+    assertEquals(4, index.getVoteNum(2, 2));
+
+    index.onChange(ChangeRecordDto.builder().type(ChangeRecordDto.Type.USER_DELETED).userId(1).build());
+    assertEquals(0, index.getVoteNum(1, 1));
+    assertEquals(0, index.getVoteNum(1, 2));
+    assertEquals(3, index.getVoteNum(2, 1));
+
+    index.rsEventRemoved(1);
+    assertEquals(0, index.getVoteNum(2, 1));
+    assertEquals(4, index.getVoteNum(2, 2));
+  }
+
+  @Test
+  void should_keep_every_total_while_growing() {
+    when(voteArchiveRepository.streamVoteNumByUserAndRsEvent()).thenReturn(Stream.empty());
+    when(voteRepository.streamVoteNumByUserAndRsEvent()).thenReturn(Stream.empty());
+    UserEventVoteIndex index =
+        new UserEventVoteIndex(voteRepository, voteArchiveRepository, transactionManager, true, 4);
+    index.afterPropertiesSet();
+
+    for (int userId = 0; userId < 200; userId++) {
+      for (int rsEventId = 0; rsEventId < 50; rsEventId++) {
+        index.onVoted(
+            RsVotedEvent.builder().userId(userId).rsEventId(rsEventId).voteNum(userId + rsEventId + 1).build());
+      }
+    }
+
+    for (int userId = 0; userId < 200; userId++) {
+      for (int rsEventId = 0; rsEventId < 50; rsEventId++) {
+        assertEquals(userId + rsEventId + 1, index.getVoteNum(userId, rsEventId));
+      }
+    }
+    assertEquals(0, index.getVoteNum(200, 0));
+  }
+}
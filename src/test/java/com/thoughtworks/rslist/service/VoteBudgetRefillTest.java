@@ -0,0 +1,113 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteRefillCheckpointDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRefillCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+    properties = {
+      "rs.vote.refill.enabled=true",
+      "rs.vote.refill.chunk-size=2",
+      "rs.vote.refill.throttle=0",
+      "spring.datasource.url=jdbc:h2:mem:refill"
+    })
+class VoteBudgetRefillTest {
+  @Autowired VoteBudgetRefill voteBudgetRefill;
+  @Autowired UserRepository userRepository;
+  @Autowired VoteRefillCheckpointRepository checkpointRepository;
+  @Autowired PlatformTransactionManager transactionManager;
+  List<UserDto> users;
+
+  @BeforeEach
+  void setUp() {
+    checkpointRepository.deleteAll();
+    userRepository.deleteAll();
+    users =
+        Arrays.asList(0, 3, 10, 12, 7).stream()
+            .map(
+                voteNum ->
+                    userRepository.save(
+                        UserDto.builder().userName("user").age(19).phone("18888888888").voteNum(voteNum).build()))
+            .collect(Collectors.toList());
+  }
+
+  @Test
+  void should_top_up_vote_budgets_in_chunks_once_per_day() {
+    LocalDate today = LocalDate.of(2020, 9, 1);
+
+    assertEquals(3, voteBudgetRefill.refill(today));
+
+    assertEquals(Arrays.asList(10, 10, 10, 12, 10), voteNums());
+    VoteRefillCheckpointDto checkpoint = checkpointRepository.findById(VoteBudgetRefill.JOB).get();
+    assertTrue(checkpoint.isFinished());
+    assertEquals(users.get(4).getId(), checkpoint.getLastUserId());
+    assertEquals(0, voteBudgetRefill.refill(today));
+  }
+
+  @Test
+  void should_restart_a_finished_checkpoint_on_the_next_day() {
+    voteBudgetRefill.refill(LocalDate.of(2020, 9, 1));
+    users.get(0).setVoteNum(1);
+    userRepository.save(users.get(0));
+
+    assertEquals(1, voteBudgetRefill.refill(LocalDate.of(2020, 9, 2)));
+    assertEquals(0, voteBudgetRefill.refill(LocalDate.of(2020, 9, 1)));
+  }
+
+  @Test
+  void should_resume_an_interrupted_run_from_the_checkpoint() throws Exception {
+    LocalDate today = LocalDate.of(2020, 9, 1);
+    checkpointRepository.save(
+        VoteRefillCheckpointDto.builder()
+            .job(VoteBudgetRefill.JOB)
+            .day(today)
+            .lastUserId(users.get(1).getId())
+            .build());
+
+    voteBudgetRefill.resume().get(10, TimeUnit.SECONDS);
+
+    assertEquals(Arrays.asList(0, 3, 10, 12, 10), voteNums());
+    assertTrue(checkpointRepository.findById(VoteBudgetRefill.JOB).get().isFinished());
+  }
+
+  @Test
+  void should_run_throttled_refill_off_the_scheduler_thread() throws Exception {
+    VoteBudgetRefill throttled =
+        new VoteBudgetRefill(userRepository, checkpointRepository, transactionManager, true, 10, 2, 200);
+    try {
+      long start = System.nanoTime();
+      CompletableFuture<Integer> run = throttled.start(LocalDate.of(2020, 9, 1));
+
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+      assertFalse(run.isDone());
+      assertNull(throttled.start(LocalDate.of(2020, 9, 1)));
+      assertEquals(3, run.get(10, TimeUnit.SECONDS));
+    } finally {
+      throttled.destroy();
+    }
+  }
+
+  private List<Integer> voteNums() {
+    return users.stream()
+        .map(user -> userRepository.findById(user.getId()).get().getVoteNum())
+        .collect(Collectors.toList());
+  }
+}
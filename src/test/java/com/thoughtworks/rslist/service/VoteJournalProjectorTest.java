@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VoteJournalProjectorTest {
+  @TempDir Path directory;
+
+  @Test
+  void should_keep_checkpoint_when_batch_fails_and_retry_it() {
+    VoteJournal voteJournal = new VoteJournal(true, directory.toString(), 4, "never");
+    for (int i = 1; i <= 3; i++) {
+      voteJournal.append(Vote.builder().userId(i).voteNum(1).time(LocalDateTime.now()).build(), 7);
+    }
+    RsService rsService = mock(RsService.class);
+    when(rsService.voteAll(anyList())).thenThrow(new QueryTimeoutException("timeout")).thenReturn(1);
+    VoteJournalProjector projector = new VoteJournalProjector(voteJournal, rsService, 10, 3);
+
+    projector.project();
+    assertEquals(0, voteJournal.getCheckpointIndex());
+
+    projector.project();
+    assertEquals(3, voteJournal.getCheckpointIndex());
+    verify(rsService, times(2)).voteAll(anyList());
+  }
+
+  @Test
+  void should_dead_letter_poison_vote_after_bounded_attempts_and_move_on() throws Exception {
+    VoteJournal voteJournal = new VoteJournal(true, directory.toString(), 4, "never");
+    for (int i = 1; i <= 3; i++) {
+      voteJournal.append(Vote.builder().userId(i).voteNum(1).time(LocalDateTime.now()).build(), 7);
+    }
+    RsService rsService = mock(RsService.class);
+    when(rsService.voteAll(argThat(votes -> votes.size() > 1 || votes.get(0).getUserId() == 2)))
+        .thenThrow(new DataIntegrityViolationException("poison"));
+    VoteJournalProjector projector = new VoteJournalProjector(voteJournal, rsService, 10, 2);
+
+    projector.project();
+    assertEquals(1, voteJournal.getCheckpointIndex());
+
+    projector.project();
+    assertEquals(3, voteJournal.getCheckpointIndex());
+    List<String> deadLetters = Files.readAllLines(directory.resolve(VoteJournal.DEAD_LETTER_FILE));
+    assertEquals(1, deadLetters.size());
+    assertTrue(deadLetters.get(0).startsWith("1,2,7,1,"));
+    verify(rsService, times(1)).voteAll(argThat(votes -> votes.size() == 1 && votes.get(0).getUserId() == 3));
+  }
+}
@@ -0,0 +1,61 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VoteJournalTest {
+  @TempDir Path directory;
+
+  private VoteJournal openJournal() {
+    return new VoteJournal(true, directory.toString(), 4, "always");
+  }
+
+  private Vote vote(int userId, int voteNum) {
+    return Vote.builder().userId(userId).voteNum(voteNum).time(LocalDateTime.of(2020, 9, 1, 10, 0)).build();
+  }
+
+  @Test
+  void should_read_appended_votes_across_segments() {
+    VoteJournal voteJournal = openJournal();
+    for (int i = 1; i <= 6; i++) {
+      voteJournal.append(vote(i, i), 7);
+    }
+
+    List<Vote> votes = voteJournal.read(0, 10);
+
+    assertEquals(6, votes.size());
+    assertEquals(
+        Vote.builder().userId(5).voteNum(5).rsEventId(7).time(LocalDateTime.of(2020, 9, 1, 10, 0)).build(),
+        votes.get(4));
+    assertEquals(2, voteJournal.read(4, 10).size());
+  }
+
+  @Test
+  void should_replay_from_checkpoint_after_reopen() throws Exception {
+    VoteJournal voteJournal = openJournal();
+    for (int i = 1; i <= 6; i++) {
+      voteJournal.append(vote(i, 1), 7);
+    }
+    voteJournal.checkpoint(5);
+    voteJournal.destroy();
+
+    VoteJournal reopened = openJournal();
+    reopened.append(vote(7, 1), 7);
+
+    assertEquals(5, reopened.getCheckpointIndex());
+    assertEquals(
+        Arrays.asList(6, 7),
+        reopened.read(reopened.getCheckpointIndex(), 10).stream().map(Vote::getUserId).collect(Collectors.toList()));
+    assertEquals(1, Files.list(directory).filter(path -> path.toString().endsWith(".journal")).count());
+  }
+}
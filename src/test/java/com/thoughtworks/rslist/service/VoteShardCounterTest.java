@@ -0,0 +1,39 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.RsEventVoteShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"rs.vote.shard-count=4", "spring.datasource.url=jdbc:h2:mem:shards"})
+class VoteShardCounterTest {
+  @Autowired VoteShardCounter voteShardCounter;
+  @Autowired RsEventVoteShardRepository rsEventVoteShardRepository;
+
+  @BeforeEach
+  void setUp() {
+    rsEventVoteShardRepository.deleteAll();
+  }
+
+  @Test
+  void should_keep_one_row_per_shard() {
+    voteShardCounter.created(1);
+    for (int i = 0; i < 20; i++) {
+      voteShardCounter.increase(1, 1);
+      voteShardCounter.increase(2, 2);
+    }
+
+    assertEquals(4, StreamSupport.stream(rsEventVoteShardRepository.findAll().spliterator(), false)
+        .filter(shard -> shard.getRsEventId() == 1)
+        .count());
+    assertEquals(20, (int) voteShardCounter.unfoldedVoteNum(Collections.singleton(1)).get(1));
+    assertEquals(40, (int) voteShardCounter.unfoldedVoteNum(Arrays.asList(1, 2)).get(2));
+  }
+}